@@ -0,0 +1,75 @@
+package io.karaoke.karaoke_reservations.config;
+
+import io.karaoke.karaoke_reservations.service.DataVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.LocalDate;
+
+
+/**
+ * GET condicional para el calendario y los catálogos: el ETag sale de los
+ * contadores de DataVersions, y si coincide con If-None-Match se responde 304
+ * antes de llegar al controlador.
+ *
+ * Las respuestas de salas y calendario también dependen del día (el mes por
+ * defecto del calendario, qué fechas se pueden consultar), así que su ETag
+ * incluye la fecha actual. /api/rooms/next-available depende de la hora y no
+ * pasa por aquí (ver WebConfig).
+ *
+ * Los contadores son de cada instancia: un cambio confirmado en otro nodo no
+ * los mueve, y este seguiría respondiendo 304 con datos viejos. Con varias
+ * instancias se desactiva con karaoke.conditional-get.enabled=false y todas
+ * las respuestas se generan completas.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final DataVersions dataVersions;
+    private final boolean enabled;
+
+    public ConditionalGetInterceptor(DataVersions dataVersions,
+            @Value("${karaoke.conditional-get.enabled:true}") boolean enabled) {
+        this.dataVersions = dataVersions;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+
+        String etag = "W/\"" + versionFor(request.getRequestURI()) + userPart(request) + "\"";
+        // Sin no-store para que el navegador guarde la respuesta y la revalide
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.ETAG, etag);
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.equals(etag) || ifNoneMatch.contains(etag))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    private String versionFor(String uri) {
+        if (uri.startsWith("/api/rooms")) {
+            return "rooms-" + dataVersions.roomsTag() + "-" + LocalDate.now();
+        }
+        if (uri.startsWith("/api/extras")) {
+            return "extras-" + dataVersions.extrasTag();
+        }
+        return "calendar-" + dataVersions.reservationsTag() + "-" + LocalDate.now();
+    }
+
+    // El calendario depende del usuario: otro usuario en el mismo navegador no reutiliza la copia
+    private String userPart(HttpServletRequest request) {
+        String user = request.getRemoteUser();
+        return user != null ? "-" + Integer.toHexString(user.hashCode()) : "";
+    }
+}
@@ -0,0 +1,24 @@
+package io.karaoke.karaoke_reservations.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/reservations/calendar/api", "/reservations/calendar/api/**",
+                        "/api/rooms/**", "/api/extras", "/api/extras/**")
+                // Calculado desde la hora actual: ningún contador lo invalida
+                .excludePathPatterns("/api/rooms/next-available");
+    }
+
+}
@@ -1,15 +1,21 @@
 package io.karaoke.karaoke_reservations.controller;
 
+import io.karaoke.karaoke_reservations.dto.ReservationImportResult;
+import io.karaoke.karaoke_reservations.service.ReservationImportService;
 import io.karaoke.karaoke_reservations.service.ReservationService;
+import io.karaoke.karaoke_reservations.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,6 +25,8 @@ import java.util.Map;
 public class AdminReservationController {
 
     private final ReservationService reservationService;
+    private final UserStatsService userStatsService;
+    private final ReservationImportService reservationImportService;
 
     @PostMapping("/reservations/{reservationId}/complete")
     public ResponseEntity<?> completeReservation(@PathVariable Integer reservationId) {
@@ -88,4 +96,58 @@ public class AdminReservationController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-}
\ No newline at end of file
+
+    // Importa reservas desde un CSV (ver ReservationImportService para el formato)
+    @PostMapping("/reservations/import")
+    public ResponseEntity<?> importReservations(@RequestParam("file") MultipartFile file) {
+        try {
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("Selecciona un archivo CSV");
+            }
+            ReservationImportResult result = reservationImportService.importCsv(file.getInputStream());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", result.isSuccess());
+            response.put("imported", result.getImported());
+            response.put("errors", result.getErrors());
+            if (!result.isSuccess()) {
+                response.put("message", "El archivo tiene " + result.getErrors().size() + " filas con errores; no se importó ninguna reserva");
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("message", "Se importaron " + result.getImported() + " reservas");
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            response.put("imported", 0);
+            response.put("errors", List.of(e.getMessage()));
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error interno del servidor");
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Recalcula el resumen de reservas de todos los usuarios (backfill)
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildUserStats() {
+        try {
+            int users = userStatsService.rebuildAll();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Resumen recalculado para " + users + " usuarios");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error interno del servidor");
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
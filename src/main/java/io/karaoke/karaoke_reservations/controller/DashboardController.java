@@ -1,11 +1,10 @@
 package io.karaoke.karaoke_reservations.controller;
 
-import io.karaoke.karaoke_reservations.domain.User;
-import io.karaoke.karaoke_reservations.service.UserService;
+import io.karaoke.karaoke_reservations.service.AuthenticatedUser;
+import io.karaoke.karaoke_reservations.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,16 +14,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 @Slf4j
 public class DashboardController {
 
-    private final UserService userService;
+    private final UserStatsService userStatsService;
 
     @GetMapping("/dashboard")
-    public String showDashboard(Model model) {
+    public String showDashboard(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         try {
-            // Obtener el usuario autenticado
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
-            
+            // El usuario autenticado ya trae id, nombre y rol desde la sesión
             if (user != null) {
                 model.addAttribute("user", user);
                 log.info("Usuario autenticado: {}", user.getEmail());
@@ -34,9 +29,11 @@ public class DashboardController {
                     log.info("Usuario es administrador, redirigiendo a admin dashboard");
                     return "redirect:/admin/dashboard";
                 }
+
+                model.addAttribute("stats", userStatsService.getStats(user.getId()));
                 
             } else {
-                log.error("Usuario no encontrado para email: {}", email);
+                log.error("No hay usuario autenticado en la sesión");
                 model.addAttribute("error", "Usuario no encontrado");
                 return "redirect:/login?error=user_not_found";
             }
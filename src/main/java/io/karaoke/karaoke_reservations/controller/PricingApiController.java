@@ -0,0 +1,35 @@
+package io.karaoke.karaoke_reservations.controller;
+
+import io.karaoke.karaoke_reservations.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class PricingApiController {
+
+    private final PricingService pricingService;
+
+    // Cotización de una reserva: sala por duración más extras, calculada en el servidor
+    @GetMapping("/quote")
+    public ResponseEntity<?> getQuote(
+            @RequestParam Integer roomId,
+            @RequestParam String startTime,
+            @RequestParam String endTime,
+            @RequestParam(required = false) List<Integer> extraIds) {
+        try {
+            return ResponseEntity.ok(pricingService.quote(roomId,
+                    LocalTime.parse(startTime), LocalTime.parse(endTime), extraIds));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -48,11 +48,6 @@ public class RegistrationController {
             result.rejectValue("confirmPassword", "error.user", "Las contraseñas no coinciden");
         }
 
-        // Validar si el email ya existe
-        if (userDTO.getEmail() != null && userService.emailExists(userDTO.getEmail())) {
-            result.rejectValue("email", "error.user", "El email ya está registrado");
-        }
-
         if (result.hasErrors()) {
             redirectAttributes.addFlashAttribute("org.springframework.validation.BindingResult.user", result);
             redirectAttributes.addFlashAttribute("user", userDTO);
@@ -73,6 +68,13 @@ public class RegistrationController {
 
             return "redirect:/login";
 
+        } catch (IllegalArgumentException e) {
+            // Email vacío o ya registrado (lo detecta el índice único al guardar)
+            result.rejectValue("email", "error.user", e.getMessage());
+            redirectAttributes.addFlashAttribute("org.springframework.validation.BindingResult.user", result);
+            redirectAttributes.addFlashAttribute("user", userDTO);
+            return "redirect:/register";
+
         } catch (Exception e) {
             result.reject("error.global", "Error al registrar usuario: " + e.getMessage());
             redirectAttributes.addFlashAttribute("org.springframework.validation.BindingResult.user", result);
@@ -2,32 +2,37 @@ package io.karaoke.karaoke_reservations.controller;
 
 import io.karaoke.karaoke_reservations.domain.Extra;
 import io.karaoke.karaoke_reservations.domain.Reservation;
-import io.karaoke.karaoke_reservations.domain.ReservationStatus;
-import io.karaoke.karaoke_reservations.domain.User;
+import io.karaoke.karaoke_reservations.domain.UserReservationStats;
 import io.karaoke.karaoke_reservations.dto.CreateReservationRequest;
 import io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO;
+import io.karaoke.karaoke_reservations.dto.ReservationHistoryPage;
+import io.karaoke.karaoke_reservations.service.AuthenticatedUser;
+import io.karaoke.karaoke_reservations.service.CalendarUpdates;
 import io.karaoke.karaoke_reservations.service.ExtraService;
+import io.karaoke.karaoke_reservations.service.PricingService;
 import io.karaoke.karaoke_reservations.service.ReservationService;
 import io.karaoke.karaoke_reservations.service.RoomService;
 import io.karaoke.karaoke_reservations.service.UserService;
+import io.karaoke.karaoke_reservations.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.Optional;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.format.annotation.DateTimeFormat;
 
 @Controller
 @RequestMapping("/reservations")
@@ -38,12 +43,12 @@ public class ReservationController {
     private final UserService userService;
     private final RoomService roomService;
     private final ExtraService extraService;
+    private final CalendarUpdates calendarUpdates;
+    private final UserStatsService userStatsService;
+    private final PricingService pricingService;
 
     @GetMapping("/my-reservations")
-    public String getUserReservations(Authentication authentication, Model model) {
-        String email = authentication.getName();
-        User user = userService.findByEmail(email);
-
+    public String getUserReservations(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         if (user != null) {
             model.addAttribute("reservations", reservationService.findByUser(user.getId()));
             model.addAttribute("user", user);
@@ -54,10 +59,7 @@ public class ReservationController {
 
     // Mostrar formulario de nueva reserva
     @GetMapping("/new")
-    public String showNewReservationForm(Authentication authentication, Model model) {
-        String email = authentication.getName();
-        User user = userService.findByEmail(email);
-
+    public String showNewReservationForm(@AuthenticationPrincipal AuthenticatedUser user, Model model) {
         if (user == null) {
             return "redirect:/login";
         }
@@ -69,23 +71,18 @@ public class ReservationController {
     // Procesar creación de reserv
     @PostMapping("/create")
     public String createReservation(@ModelAttribute CreateReservationRequest request,
-            Authentication authentication,
+            @AuthenticationPrincipal AuthenticatedUser user,
             Model model) {
         try {
-            // Obtener usuario autenticado
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
-
             if (user == null) {
                 model.addAttribute("error", "Usuario no encontrado");
-                model.addAttribute("user", userService.findByEmail(authentication.getName()));
                 return "new-reservation";
             }
 
-            // Validar campos requeridos
+            // Validar campos requeridos (el total lo calcula el servidor)
             if (request.getReservationDate() == null || request.getStartTime() == null ||
                     request.getEndTime() == null || request.getNumberOfPeople() == null ||
-                    request.getRoomId() == null || request.getTotalPrice() == null) {
+                    request.getRoomId() == null) {
                 model.addAttribute("error", "Todos los campos obligatorios deben ser completados");
                 model.addAttribute("user", user);
                 return "new-reservation";
@@ -97,33 +94,28 @@ public class ReservationController {
             reservation.setStartTime(request.getStartTime());
             reservation.setEndTime(request.getEndTime());
             reservation.setNumberOfPeople(request.getNumberOfPeople());
-            reservation.setTotalPrice(request.getTotalPrice());
 
             // Establecer relaciones
-            reservation.setUser(user);
+            reservation.setUser(userService.getReference(user.getId()));
             reservation.setRoom(roomService.findById(request.getRoomId())
                     .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada")));
 
+            // Todos los extras en una sola consulta; los ids inexistentes se ignoran
             if (request.getExtraIds() != null && !request.getExtraIds().isEmpty()) {
-                Set<Extra> extrasSet = new HashSet<>();
-
-                for (Integer extraId : request.getExtraIds()) {
-                    Optional<Extra> extraOpt = extraService.findById(extraId);
-                    if (extraOpt.isPresent()) {
-                        extrasSet.add(extraOpt.get());
-                    }
-                }
-
+                Set<Extra> extrasSet = new HashSet<>(extraService.findAllById(request.getExtraIds()));
                 reservation.setExtras(extrasSet);
             }
 
+            // Precio calculado en el servidor; el total enviado por el cliente no se usa
+            reservation.setTotalPrice(pricingService.quote(request.getRoomId(), request.getStartTime(),
+                    request.getEndTime(), reservation.getExtras().stream().map(Extra::getId).toList())
+                    .getTotal());
+
             Reservation savedReservation = reservationService.createReservation(reservation);
             return "redirect:/reservations/my-reservations?success=true";
 
         } catch (IllegalArgumentException e) {
             e.printStackTrace();
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
 
             model.addAttribute("error", e.getMessage());
             model.addAttribute("user", user);
@@ -135,8 +127,6 @@ public class ReservationController {
 
         } catch (Exception e) {
             e.printStackTrace();
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
 
             model.addAttribute("error", "Error al crear la reserva: " + e.getMessage());
             model.addAttribute("user", user);
@@ -157,13 +147,10 @@ public class ReservationController {
     // Cancelar reserva
     @PostMapping("/{id}/cancel")
     public String cancelReservation(@PathVariable Integer id,
-            Authentication authentication,
+            @AuthenticationPrincipal AuthenticatedUser user,
             RedirectAttributes redirectAttributes) {
         try {
             // Verificar que la reserva pertenece al usuario
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
-
             Reservation reservation = reservationService.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
 
@@ -201,23 +188,20 @@ public class ReservationController {
     // Endpoint JSON para el calendario
     @GetMapping("/calendar/api")
     @ResponseBody
-    public Object getCalendarReservations(Authentication authentication) {
+    public Object getCalendarReservations(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         // Devolver las reservas agrupadas por fecha, filtrando por el usuario autenticado
         try {
-            Integer currentUserId = null;
-            if (authentication != null) {
-                String email = authentication.getName();
-                if (email != null) {
-                    User user = userService.findByEmail(email);
-                    if (user != null) {
-                        currentUserId = user.getId();
-                    }
-                }
-            }
+            Integer currentUserId = user != null ? user.getId() : null;
 
-            java.util.Map<String, java.util.List<java.util.Map<String, Object>>> byDate = reservationService.getReservationsGroupedByDateForUser(currentUserId);
+            LocalDate[] window = reservationService.calendarWindow(from, to);
+            java.util.Map<String, java.util.List<java.util.Map<String, Object>>> byDate =
+                reservationService.getReservationsGroupedByDateForUser(currentUserId, window[0], window[1]);
 
             java.util.Map<String, Object> resp = new java.util.HashMap<>();
+            resp.put("from", window[0].toString());
+            resp.put("to", window[1].toString());
             resp.put("reservationsByDate", byDate);
             return resp;
         } catch (Exception e) {
@@ -230,15 +214,14 @@ public class ReservationController {
 
     @GetMapping("/history")
     public String getReservationHistory(
-            Authentication authentication,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @RequestParam(value = "filter", defaultValue = "all") String filter,
             @RequestParam(value = "sort", defaultValue = "date_desc") String sort,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "20") int size,
             Model model) {
 
         try {
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
-
             if (user == null) {
                 model.addAttribute("error", "Usuario no encontrado");
                 model.addAttribute("user", null);
@@ -253,29 +236,40 @@ public class ReservationController {
                 return "reservation-history";
             }
 
-            List<ReservationHistoryDTO> allReservations = reservationService.findReservationHistoryByUser(user.getId());
-
-            // Aplicar filtros
-            List<ReservationHistoryDTO> filteredReservations = filterReservationsDTO(allReservations, filter);
-
-            // Aplicar ordenamiento 
-            List<ReservationHistoryDTO> sortedReservations = sortReservationsDTO(filteredReservations, sort);
-
-            // Calcular estadísticas usando el nuevo método para DTOs
-            long completedCount = countByStatusDTO(allReservations, ReservationStatus.COMPLETED);
-            long cancelledCount = countByStatusDTO(allReservations, ReservationStatus.CANCELLED);
-            long confirmedCount = countByStatusDTO(allReservations, ReservationStatus.CONFIRMED);
+            // Filtro, orden y página se resuelven en la base de datos
+            ReservationHistoryPage page = reservationService.findReservationHistoryPage(
+                    user.getId(), filter, sort, after, size);
+
+            // Estadísticas desde el resumen del usuario (una sola fila)
+            UserReservationStats stats = userStatsService.getStats(user.getId());
+            long completedCount = stats.getCompletedCount();
+            long cancelledCount = stats.getCancelledCount();
+            long confirmedCount = stats.getConfirmedCount();
+            long totalReservations = stats.getTotalCount();
+
+            long filteredCount = switch (filter.toLowerCase()) {
+                case "completed" -> completedCount;
+                case "cancelled" -> cancelledCount;
+                case "confirmed" -> confirmedCount;
+                case "past", "upcoming" -> reservationService.countReservationHistory(user.getId(), filter);
+                default -> totalReservations;
+            };
 
             // Agregar todos los atributos al modelo
-            model.addAttribute("reservations", sortedReservations);
+            model.addAttribute("reservations", page.getReservations());
+            model.addAttribute("nextCursor", page.getNextCursor());
+            model.addAttribute("currentAfter", after);
+            model.addAttribute("pageSize", size);
             model.addAttribute("user", user);
             model.addAttribute("currentFilter", filter);
             model.addAttribute("currentSort", sort);
-            model.addAttribute("totalReservations", allReservations.size());
-            model.addAttribute("filteredCount", sortedReservations.size());
+            model.addAttribute("totalReservations", totalReservations);
+            model.addAttribute("filteredCount", filteredCount);
             model.addAttribute("completedCount", completedCount);
             model.addAttribute("cancelledCount", cancelledCount);
             model.addAttribute("confirmedCount", confirmedCount);
+            model.addAttribute("totalSpent", stats.getTotalSpent());
+            model.addAttribute("lastVisit", stats.getLastVisit());
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -295,125 +289,27 @@ public class ReservationController {
         return "reservation-history";
     }
 
-    // Métodos auxiliares adaptados para DTOs
-    private List<ReservationHistoryDTO> filterReservationsDTO(List<ReservationHistoryDTO> reservations, String filter) {
-        return reservations.stream()
-                .filter(reservation -> {
-                    if (reservation == null)
-                        return false;
-
-                    switch (filter.toLowerCase()) {
-                        case "completed":
-                            return reservation.getStatus() == ReservationStatus.COMPLETED;
-                        case "cancelled":
-                            return reservation.getStatus() == ReservationStatus.CANCELLED;
-                        case "confirmed":
-                            return reservation.getStatus() == ReservationStatus.CONFIRMED;
-                        case "past":
-                            if (reservation.getReservationDate() == null)
-                                return false;
-                            return reservation.getReservationDate().isBefore(LocalDate.now()) ||
-                                    (reservation.getReservationDate().equals(LocalDate.now()) &&
-                                            reservation.getEndTime() != null &&
-                                            reservation.getEndTime().isBefore(LocalTime.now()));
-                        case "upcoming":
-                            if (reservation.getReservationDate() == null)
-                                return false;
-                            return reservation.getReservationDate().isAfter(LocalDate.now()) ||
-                                    (reservation.getReservationDate().equals(LocalDate.now()) &&
-                                            reservation.getStartTime() != null &&
-                                            reservation.getStartTime().isAfter(LocalTime.now()));
-                        default:
-                            return true; // "all"
-                    }
-                })
-                .collect(Collectors.toList());
-    }
-
-   
-    private List<ReservationHistoryDTO> sortReservationsDTO(List<ReservationHistoryDTO> reservations, String sort) {
-        Comparator<ReservationHistoryDTO> comparator;
-
-        switch (sort) {
-            case "date_asc":
-                comparator = Comparator.comparing(ReservationHistoryDTO::getReservationDate)
-                        .thenComparing(ReservationHistoryDTO::getStartTime);
-                break;
-            case "price_desc":
-                comparator = (r1, r2) -> {
-                    BigDecimal price1 = r1.getTotalPrice();
-                    BigDecimal price2 = r2.getTotalPrice();
-                    if (price1 == null && price2 == null)
-                        return 0;
-                    if (price1 == null)
-                        return 1;
-                    if (price2 == null)
-                        return -1;
-                    return price2.compareTo(price1); 
-                };
-                break;
-            case "price_asc":
-                comparator = (r1, r2) -> {
-                    BigDecimal price1 = r1.getTotalPrice();
-                    BigDecimal price2 = r2.getTotalPrice();
-                    if (price1 == null && price2 == null)
-                        return 0;
-                    if (price1 == null)
-                        return 1;
-                    if (price2 == null)
-                        return -1;
-                    return price1.compareTo(price2); 
-                };
-                break;
-            case "people_desc":
-                comparator = (r1, r2) -> {
-                    Integer people1 = r1.getNumberOfPeople();
-                    Integer people2 = r2.getNumberOfPeople();
-                    if (people1 == null && people2 == null)
-                        return 0;
-                    if (people1 == null)
-                        return 1;
-                    if (people2 == null)
-                        return -1;
-                    return Integer.compare(people2, people1);
-                };
-                break;
-            default: // "date_desc"
-                comparator = Comparator.comparing(ReservationHistoryDTO::getReservationDate)
-                        .thenComparing(ReservationHistoryDTO::getStartTime)
-                        .reversed();
-        }
-
-        return reservations.stream()
-                .sorted(comparator)
-                .collect(Collectors.toList());
-    }
-
-    private long countByStatusDTO(List<ReservationHistoryDTO> reservations, ReservationStatus status) {
-        return reservations.stream()
-                .filter(r -> r != null && r.getStatus() == status)
-                .count();
-    }
-
     // Endpoint JSON para el calendario del ADMIN (todas las reservas)
     @GetMapping("/calendar/api/admin")
     @ResponseBody
-    public Object getCalendarReservationsForAdmin(Authentication authentication) {
+    public Object getCalendarReservationsForAdmin(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
         try {
             // Verificar que el usuario es admin
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
-            
             if (user == null || !user.isAdmin()) {
                 java.util.Map<String, Object> err = new java.util.HashMap<>();
                 err.put("error", "No autorizado");
                 return ResponseEntity.status(403).body(err);
             }
 
+            LocalDate[] window = reservationService.calendarWindow(from, to);
             java.util.Map<String, java.util.List<java.util.Map<String, Object>>> byDate = 
-                reservationService.getReservationsGroupedByDateForAdmin();
+                reservationService.getReservationsGroupedByDateForAdmin(window[0], window[1]);
 
             java.util.Map<String, Object> resp = new java.util.HashMap<>();
+            resp.put("from", window[0].toString());
+            resp.put("to", window[1].toString());
             resp.put("reservationsByDate", byDate);
             return resp;
         } catch (Exception e) {
@@ -423,4 +319,51 @@ public class ReservationController {
             return err;
         }
     }
-}
\ No newline at end of file
+
+    // Exportación del calendario del ADMIN para rangos grandes: se escribe en
+    // la respuesta a medida que se leen las filas
+    @GetMapping("/calendar/api/admin/export")
+    public ResponseEntity<?> exportCalendarReservationsForAdmin(@AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (user == null || !user.isAdmin()) {
+            java.util.Map<String, Object> err = new java.util.HashMap<>();
+            err.put("error", "No autorizado");
+            return ResponseEntity.status(403).body(err);
+        }
+
+        LocalDate[] window;
+        try {
+            window = reservationService.calendarWindow(from, to, ReservationService.MAX_EXPORT_DAYS);
+        } catch (IllegalArgumentException e) {
+            java.util.Map<String, Object> err = new java.util.HashMap<>();
+            err.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(err);
+        }
+
+        StreamingResponseBody body = out -> reservationService.writeCalendarForAdmin(window[0], window[1], out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reservas-" + window[0] + "-" + window[1] + ".json\"")
+                .body(body);
+    }
+
+    // Avisos en vivo para el calendario del usuario (solo sus reservas)
+    @GetMapping(value = "/calendar/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCalendarUpdates(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(calendarUpdates.subscribe(user.getId(), false));
+    }
+
+    // Avisos en vivo para el calendario del ADMIN (todas las reservas)
+    @GetMapping(value = "/calendar/stream/admin", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCalendarUpdatesForAdmin(@AuthenticationPrincipal AuthenticatedUser user) {
+        if (user == null || !user.isAdmin()) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(calendarUpdates.subscribe(user.getId(), true));
+    }
+}
@@ -1,6 +1,9 @@
 package io.karaoke.karaoke_reservations.controller;
 
+import io.karaoke.karaoke_reservations.dto.AvailabilityCheckDTO;
 import io.karaoke.karaoke_reservations.dto.RoomDTO;
+import io.karaoke.karaoke_reservations.dto.SlotSuggestionDTO;
+import io.karaoke.karaoke_reservations.service.AvailabilityIndex;
 import io.karaoke.karaoke_reservations.service.RoomService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -66,6 +70,59 @@ public class RoomApiController {
         }
     }
 
+    // Verificar disponibilidad de muchas salas/horarios en una sola llamada
+    @PostMapping("/check-availability/batch")
+    public ResponseEntity<?> checkRoomAvailabilityBatch(@RequestBody List<AvailabilityCheckDTO> checks) {
+        try {
+            return ResponseEntity.ok(roomService.checkAvailabilityBatch(checks));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Próximos horarios libres (todas las salas) cercanos a la hora preferida
+    @GetMapping("/next-available")
+    public ResponseEntity<?> findNextAvailableSlots(
+            @RequestParam Integer people,
+            @RequestParam String date,
+            @RequestParam String time,
+            @RequestParam Integer duration,
+            @RequestParam(defaultValue = "5") Integer limit) {
+
+        try {
+            List<SlotSuggestionDTO> suggestions = roomService.findNextAvailableSlots(
+                    people, LocalDate.parse(date), LocalTime.parse(time), duration, limit);
+            return ResponseEntity.ok(suggestions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fecha u hora inválida"));
+        }
+    }
+
+    // Ocupación de todas las salas por bloques de 15 minutos (uno o varios días)
+    @GetMapping("/availability-grid")
+    public ResponseEntity<Map<String, Object>> getAvailabilityGrid(
+            @RequestParam String date,
+            @RequestParam(defaultValue = "1") Integer days) {
+
+        try {
+            LocalDate from = LocalDate.parse(date);
+            Map<String, Map<Integer, String>> grid = roomService.getAvailabilityGrid(from, days);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("from", from.toString());
+            response.put("days", days);
+            response.put("slotMinutes", AvailabilityIndex.SLOT_MINUTES);
+            response.put("busy", grid);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Fecha inválida"));
+        }
+    }
+
     // Verificar si una sala puede acomodar cierto número de personas
     @GetMapping("/{id}/can-accommodate")
     public ResponseEntity<Map<String, Boolean>> canRoomAccommodate(
@@ -2,6 +2,7 @@ package io.karaoke.karaoke_reservations.domain;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
@@ -18,8 +19,17 @@ import io.karaoke.karaoke_reservations.domain.ReservationStatus;
 @EntityListeners(AuditingEntityListener.class)
 public class Reservation {
 
+    // Secuencia con bloques de 50 ids: permite agrupar los INSERT en lotes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceGenerator(
+            name = "reservations_seq",
+            sequenceName = "reservations_seq",
+            allocationSize = 50
+    )
+    @GeneratedValue(
+            strategy = GenerationType.SEQUENCE,
+            generator = "reservations_seq"
+    )
     private Integer id;
 
     @Column(nullable = false)
@@ -175,20 +185,12 @@ public class Reservation {
     private void calculateDurationAndPrice() {
         // 1. Calcular duración
         if (startTime != null && endTime != null) {
-            if (endTime.isBefore(startTime)) {
-                // Pasa de medianoche
-                this.durationMinutes = (int) (ChronoUnit.MINUTES.between(startTime, LocalTime.MAX) +
-                        ChronoUnit.MINUTES.between(LocalTime.MIN, endTime) + 1);
-            } else {
-                // Horario normal
-                this.durationMinutes = (int) ChronoUnit.MINUTES.between(startTime, endTime);
-            }
+            this.durationMinutes = durationMinutes(startTime, endTime);
         }
 
         // 2. Calcular precio
         if (this.room != null && this.durationMinutes != null) {
-            double hours = this.durationMinutes / 60.0;
-            BigDecimal roomPrice = BigDecimal.valueOf(this.room.getPricePerHour() * hours);
+            BigDecimal roomPrice = roomPrice(BigDecimal.valueOf(this.room.getPricePerHour()), this.durationMinutes);
 
             // Calcular precio de extras
             BigDecimal extrasPrice = BigDecimal.ZERO;
@@ -203,6 +205,22 @@ public class Reservation {
 
     }
 
+    public static int durationMinutes(LocalTime startTime, LocalTime endTime) {
+        if (endTime.isBefore(startTime)) {
+            // Pasa de medianoche
+            return (int) (ChronoUnit.MINUTES.between(startTime, LocalTime.MAX) +
+                    ChronoUnit.MINUTES.between(LocalTime.MIN, endTime) + 1);
+        }
+        // Horario normal
+        return (int) ChronoUnit.MINUTES.between(startTime, endTime);
+    }
+
+    // Precio por hora * minutos / 60, exacto y redondeado a centavos
+    public static BigDecimal roomPrice(BigDecimal pricePerHour, int durationMinutes) {
+        return pricePerHour.multiply(BigDecimal.valueOf(durationMinutes))
+                .divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+    }
+
     // Método para agregar extra
     public void addExtra(Extra extra) {
         if (this.extras == null) {
@@ -0,0 +1,47 @@
+package io.karaoke.karaoke_reservations.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Resumen de reservas por usuario, mantenido en la misma transacción que cada
+ * cambio de reserva. Evita recorrer todas las reservas del usuario para
+ * mostrar sus conteos.
+ */
+@Entity
+@Table(name = "user_reservation_stats")
+@Getter
+@Setter
+public class UserReservationStats {
+
+    @Id
+    private Integer userId;
+
+    @Column(nullable = false)
+    private Long confirmedCount = 0L;
+
+    @Column(nullable = false)
+    private Long cancelledCount = 0L;
+
+    @Column(nullable = false)
+    private Long completedCount = 0L;
+
+    // Suma del precio de las reservas completadas
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    // Fecha de la última reserva completada
+    private LocalDate lastVisit;
+
+    @Column(nullable = false)
+    private OffsetDateTime lastUpdated;
+
+    public long getTotalCount() {
+        return confirmedCount + cancelledCount + completedCount;
+    }
+}
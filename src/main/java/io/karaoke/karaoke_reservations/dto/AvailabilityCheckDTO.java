@@ -0,0 +1,34 @@
+package io.karaoke.karaoke_reservations.dto;
+
+public class AvailabilityCheckDTO {
+    private Integer roomId;
+    private String date;
+    private String startTime;
+    private String endTime;
+    private Boolean available;
+
+    public AvailabilityCheckDTO() {}
+
+    public AvailabilityCheckDTO(Integer roomId, String date, String startTime, String endTime, Boolean available) {
+        this.roomId = roomId;
+        this.date = date;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.available = available;
+    }
+
+    public Integer getRoomId() { return roomId; }
+    public void setRoomId(Integer roomId) { this.roomId = roomId; }
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+
+    public String getStartTime() { return startTime; }
+    public void setStartTime(String startTime) { this.startTime = startTime; }
+
+    public String getEndTime() { return endTime; }
+    public void setEndTime(String endTime) { this.endTime = endTime; }
+
+    public Boolean getAvailable() { return available; }
+    public void setAvailable(Boolean available) { this.available = available; }
+}
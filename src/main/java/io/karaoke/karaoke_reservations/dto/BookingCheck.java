@@ -0,0 +1,48 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import java.util.Optional;
+
+/**
+ * Resultado de la validación de una reserva en una sola consulta: datos de la
+ * sala y conflictos de sala y de usuario en el mismo horario.
+ */
+public interface BookingCheck {
+
+    Boolean getRoomExists();
+
+    Boolean getRoomAvailable();
+
+    Integer getMaxCapacity();
+
+    Boolean getRoomConflict();
+
+    Boolean getUserConflict();
+
+    enum Reason {
+        ROOM_NOT_FOUND,
+        ROOM_NOT_AVAILABLE,
+        OVER_CAPACITY,
+        ROOM_CONFLICT,
+        USER_CONFLICT
+    }
+
+    // Primer motivo de rechazo, en el mismo orden en que se validaba antes
+    default Optional<Reason> rejection(int numberOfPeople) {
+        if (!Boolean.TRUE.equals(getRoomExists())) {
+            return Optional.of(Reason.ROOM_NOT_FOUND);
+        }
+        if (!Boolean.TRUE.equals(getRoomAvailable())) {
+            return Optional.of(Reason.ROOM_NOT_AVAILABLE);
+        }
+        if (numberOfPeople > getMaxCapacity()) {
+            return Optional.of(Reason.OVER_CAPACITY);
+        }
+        if (Boolean.TRUE.equals(getRoomConflict())) {
+            return Optional.of(Reason.ROOM_CONFLICT);
+        }
+        if (Boolean.TRUE.equals(getUserConflict())) {
+            return Optional.of(Reason.USER_CONFLICT);
+        }
+        return Optional.empty();
+    }
+}
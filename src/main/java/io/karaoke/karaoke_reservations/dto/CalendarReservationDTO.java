@@ -0,0 +1,143 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila del calendario: solo los campos que muestra la vista, con la sala y el
+ * cliente ya unidos en la misma consulta.
+ */
+public class CalendarReservationDTO {
+    private Integer id;
+    private LocalDate reservationDate;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Integer numberOfPeople;
+    private ReservationStatus status;
+    private Integer roomId;
+    private String roomName;
+    private Integer customerId;
+    private String customerName;
+    private String customerEmail;
+    private String customerPhone;
+
+    public CalendarReservationDTO(Integer id, LocalDate reservationDate, LocalTime startTime,
+            LocalTime endTime, Integer numberOfPeople, ReservationStatus status,
+            Integer roomId, String roomName, Integer customerId, String customerName,
+            String customerEmail, String customerPhone) {
+        this.id = id;
+        this.reservationDate = reservationDate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.numberOfPeople = numberOfPeople;
+        this.status = status;
+        this.roomId = roomId;
+        this.roomName = roomName;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.customerPhone = customerPhone;
+    }
+
+    // Constructor vacío
+    public CalendarReservationDTO() {
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public LocalDate getReservationDate() {
+        return reservationDate;
+    }
+
+    public void setReservationDate(LocalDate reservationDate) {
+        this.reservationDate = reservationDate;
+    }
+
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public Integer getNumberOfPeople() {
+        return numberOfPeople;
+    }
+
+    public void setNumberOfPeople(Integer numberOfPeople) {
+        this.numberOfPeople = numberOfPeople;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public Integer getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(Integer roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getRoomName() {
+        return roomName;
+    }
+
+    public void setRoomName(String roomName) {
+        this.roomName = roomName;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+
+    public String getCustomerPhone() {
+        return customerPhone;
+    }
+
+    public void setCustomerPhone(String customerPhone) {
+        this.customerPhone = customerPhone;
+    }
+}
@@ -0,0 +1,57 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cotización de una reserva calculada en el servidor: precio de la sala por
+ * la duración más los extras, con BigDecimal.
+ */
+public class PriceQuoteDTO {
+    private Integer roomId;
+    private String roomName;
+    private BigDecimal pricePerHour;
+    private Integer durationMinutes;
+    private BigDecimal roomPrice;
+    private List<Integer> extraIds;
+    private BigDecimal extrasPrice;
+    private BigDecimal total;
+
+    public PriceQuoteDTO(Integer roomId, String roomName, BigDecimal pricePerHour, Integer durationMinutes,
+                         BigDecimal roomPrice, List<Integer> extraIds, BigDecimal extrasPrice, BigDecimal total) {
+        this.roomId = roomId;
+        this.roomName = roomName;
+        this.pricePerHour = pricePerHour;
+        this.durationMinutes = durationMinutes;
+        this.roomPrice = roomPrice;
+        this.extraIds = extraIds;
+        this.extrasPrice = extrasPrice;
+        this.total = total;
+    }
+
+    public PriceQuoteDTO() {}
+
+    public Integer getRoomId() { return roomId; }
+    public void setRoomId(Integer roomId) { this.roomId = roomId; }
+
+    public String getRoomName() { return roomName; }
+    public void setRoomName(String roomName) { this.roomName = roomName; }
+
+    public BigDecimal getPricePerHour() { return pricePerHour; }
+    public void setPricePerHour(BigDecimal pricePerHour) { this.pricePerHour = pricePerHour; }
+
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+
+    public BigDecimal getRoomPrice() { return roomPrice; }
+    public void setRoomPrice(BigDecimal roomPrice) { this.roomPrice = roomPrice; }
+
+    public List<Integer> getExtraIds() { return extraIds; }
+    public void setExtraIds(List<Integer> extraIds) { this.extraIds = extraIds; }
+
+    public BigDecimal getExtrasPrice() { return extrasPrice; }
+    public void setExtrasPrice(BigDecimal extrasPrice) { this.extrasPrice = extrasPrice; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+}
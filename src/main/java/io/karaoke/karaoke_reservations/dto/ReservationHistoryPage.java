@@ -0,0 +1,37 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import java.util.List;
+
+/**
+ * Una página del historial. nextCursor es la posición desde la que se pide la
+ * página siguiente, o null si no hay más reservas.
+ */
+public class ReservationHistoryPage {
+    private List<ReservationHistoryDTO> reservations;
+    private String nextCursor;
+
+    public ReservationHistoryPage(List<ReservationHistoryDTO> reservations, String nextCursor) {
+        this.reservations = reservations;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ReservationHistoryDTO> getReservations() {
+        return reservations;
+    }
+
+    public void setReservations(List<ReservationHistoryDTO> reservations) {
+        this.reservations = reservations;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
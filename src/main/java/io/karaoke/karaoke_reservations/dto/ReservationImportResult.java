@@ -0,0 +1,27 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación de reservas: cuántas se guardaron y, si hubo
+ * filas inválidas, los errores por fila (en ese caso no se guarda ninguna).
+ */
+public class ReservationImportResult {
+    private int imported;
+    private List<String> errors;
+
+    public ReservationImportResult(int imported, List<String> errors) {
+        this.imported = imported;
+        this.errors = errors;
+    }
+
+    public ReservationImportResult() {}
+
+    public boolean isSuccess() { return errors == null || errors.isEmpty(); }
+
+    public int getImported() { return imported; }
+    public void setImported(int imported) { this.imported = imported; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+}
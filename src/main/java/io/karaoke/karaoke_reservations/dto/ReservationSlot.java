@@ -0,0 +1,77 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Vista mínima de una reserva para el índice de disponibilidad: solo sala,
+ * usuario, horario y estado. El intervalo se guarda en minutos absolutos
+ * (epoch) para que las reservas que cruzan medianoche no necesiten casos
+ * especiales.
+ */
+@Getter
+public class ReservationSlot {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final Integer id;
+    private final Integer roomId;
+    private final Integer userId;
+    private final LocalDate reservationDate;
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+    private final ReservationStatus status;
+    private final long start;
+    private final long end;
+
+    public ReservationSlot(Integer id, Integer roomId, Integer userId, LocalDate reservationDate,
+            LocalTime startTime, LocalTime endTime, ReservationStatus status) {
+        this.id = id;
+        this.roomId = roomId;
+        this.userId = userId;
+        this.reservationDate = reservationDate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+        this.start = startOf(reservationDate, startTime);
+        this.end = endOf(reservationDate, startTime, endTime);
+    }
+
+    public static ReservationSlot of(Reservation reservation) {
+        return new ReservationSlot(
+                reservation.getId(),
+                reservation.getRoom().getId(),
+                reservation.getUser().getId(),
+                reservation.getReservationDate(),
+                reservation.getStartTime(),
+                reservation.getEndTime(),
+                reservation.getStatus());
+    }
+
+    // Minuto absoluto de inicio
+    public static long startOf(LocalDate date, LocalTime startTime) {
+        return date.toEpochDay() * MINUTES_PER_DAY + startTime.toSecondOfDay() / 60;
+    }
+
+    // Minuto absoluto de fin (si la hora final es menor, pasa al día siguiente)
+    public static long endOf(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        LocalDate endDate = endTime.isBefore(startTime) ? date.plusDays(1) : date;
+        return endDate.toEpochDay() * MINUTES_PER_DAY + endTime.toSecondOfDay() / 60;
+    }
+
+    public boolean crossesMidnight() {
+        return endTime.isBefore(startTime);
+    }
+
+    public boolean isActive() {
+        return status != ReservationStatus.CANCELLED;
+    }
+
+    public boolean overlaps(long otherStart, long otherEnd) {
+        return start < otherEnd && end > otherStart;
+    }
+}
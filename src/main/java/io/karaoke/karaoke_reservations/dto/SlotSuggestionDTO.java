@@ -0,0 +1,49 @@
+package io.karaoke.karaoke_reservations.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public class SlotSuggestionDTO {
+    private Integer roomId;
+    private String roomName;
+    private Integer maxCapacity;
+    private BigDecimal pricePerHour;
+    private LocalDate reservationDate;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    public SlotSuggestionDTO(Integer roomId, String roomName, Integer maxCapacity, BigDecimal pricePerHour,
+                             LocalDate reservationDate, LocalTime startTime, LocalTime endTime) {
+        this.roomId = roomId;
+        this.roomName = roomName;
+        this.maxCapacity = maxCapacity;
+        this.pricePerHour = pricePerHour;
+        this.reservationDate = reservationDate;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public SlotSuggestionDTO() {}
+
+    public Integer getRoomId() { return roomId; }
+    public void setRoomId(Integer roomId) { this.roomId = roomId; }
+
+    public String getRoomName() { return roomName; }
+    public void setRoomName(String roomName) { this.roomName = roomName; }
+
+    public Integer getMaxCapacity() { return maxCapacity; }
+    public void setMaxCapacity(Integer maxCapacity) { this.maxCapacity = maxCapacity; }
+
+    public BigDecimal getPricePerHour() { return pricePerHour; }
+    public void setPricePerHour(BigDecimal pricePerHour) { this.pricePerHour = pricePerHour; }
+
+    public LocalDate getReservationDate() { return reservationDate; }
+    public void setReservationDate(LocalDate reservationDate) { this.reservationDate = reservationDate; }
+
+    public LocalTime getStartTime() { return startTime; }
+    public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+
+    public LocalTime getEndTime() { return endTime; }
+    public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+}
@@ -0,0 +1,25 @@
+package io.karaoke.karaoke_reservations.events;
+
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+
+@Getter
+@AllArgsConstructor
+public class ReservationChanged {
+
+    public enum Action {
+        CREATED,
+        CANCELLED,
+        COMPLETED,
+        REVERTED,
+        DELETED
+    }
+
+    private Action action;
+    private ReservationSlot slot;
+    private ReservationStatus previousStatus;
+
+}
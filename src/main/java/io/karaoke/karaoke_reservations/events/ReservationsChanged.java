@@ -0,0 +1,29 @@
+package io.karaoke.karaoke_reservations.events;
+
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+
+/**
+ * Mismo cambio aplicado a muchas reservas en una transacción (importación,
+ * autocompletado). Se publica una sola vez por lote en lugar de un
+ * ReservationChanged por fila.
+ */
+@Getter
+@AllArgsConstructor
+public class ReservationsChanged {
+
+    private ReservationChanged.Action action;
+    private List<ReservationSlot> slots;
+    private ReservationStatus previousStatus;
+
+    // El lote como cambios individuales, para los que procesan reserva por reserva
+    public List<ReservationChanged> changes() {
+        return slots.stream().map(slot -> new ReservationChanged(action, slot, previousStatus)).toList();
+    }
+
+}
@@ -6,7 +6,7 @@ import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
-public class BeforeDeleteExtra {
+public class RoomChanged {
 
     private Integer id;
 
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ExtraRepository extends JpaRepository<Extra, Integer> {
@@ -13,4 +14,13 @@ public interface ExtraRepository extends JpaRepository<Extra, Integer> {
 
     @Query("SELECT e FROM Extra e JOIN e.reservations r WHERE r.id = :reservationId")
     List<Extra> findExtrasByReservationId(@Param("reservationId") Integer reservationId);
+
+    // Extras de varias reservas en una sola consulta: filas [reservationId, Extra]
+    @Query("SELECT r.id, e FROM Reservation r JOIN r.extras e WHERE r.id IN :reservationIds")
+    List<Object[]> findExtrasByReservationIds(@Param("reservationIds") Collection<Integer> reservationIds);
+
+    // Huella de toda la tabla: cambia con cualquier INSERT/UPDATE/DELETE, también los hechos por SQL
+    @Query(value = "SELECT coalesce(md5(string_agg(e::text, ',' ORDER BY e.id)), '') FROM extras e",
+            nativeQuery = true)
+    String fingerprint();
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package io.karaoke.karaoke_reservations.repos;
+
+import io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO;
+
+import java.util.List;
+
+/**
+ * Consultas del historial con filtro, orden y paginación por clave (keyset)
+ * resueltos en la base de datos.
+ */
+public interface ReservationHistoryQueries {
+
+    /**
+     * Hasta limit reservas del usuario con el filtro y orden indicados,
+     * a continuación de la posición after (null para la primera página).
+     */
+    List<ReservationHistoryDTO> findHistoryPage(Integer userId, String filter, String sort, String after, int limit);
+
+    // Posición de una reserva en el orden indicado, para pedir la página siguiente
+    String cursorOf(ReservationHistoryDTO reservation, String sort);
+
+    // Total de reservas del usuario que cumplen el filtro
+    long countHistory(Integer userId, String filter);
+}
@@ -0,0 +1,152 @@
+package io.karaoke.karaoke_reservations.repos;
+
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arma la consulta JPQL del historial según filtro y orden. La paginación es
+ * por clave: la página siguiente empieza después de la última fila vista,
+ * con el id como desempate, así el costo no depende de cuántas reservas
+ * tenga el usuario ni de qué página se pida.
+ */
+public class ReservationHistoryQueriesImpl implements ReservationHistoryQueries {
+
+    private static final String SELECT = "SELECT new io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO(" +
+            "r.id, room.name, r.reservationDate, r.startTime, r.endTime, " +
+            "r.numberOfPeople, r.totalPrice, r.status, r.durationMinutes, r.dateCreated) " +
+            "FROM Reservation r " +
+            "LEFT JOIN r.room room ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ReservationHistoryDTO> findHistoryPage(Integer userId, String filter, String sort, String after,
+            int limit) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder jpql = new StringBuilder(SELECT).append(where(userId, filter, params));
+
+        boolean descending = !"date_asc".equals(sort) && !"price_asc".equals(sort);
+        String op = descending ? "<" : ">";
+        String dir = descending ? " DESC" : " ASC";
+
+        if (after != null && !after.isBlank()) {
+            String[] parts = after.split("_");
+            try {
+                switch (sortKey(sort)) {
+                    case "date" -> {
+                        params.put("afterDate", LocalDate.parse(parts[0]));
+                        params.put("afterTime", LocalTime.parse(parts[1]));
+                        params.put("afterId", Integer.valueOf(parts[2]));
+                        jpql.append("AND (r.reservationDate ").append(op).append(" :afterDate ")
+                                .append("OR (r.reservationDate = :afterDate AND (r.startTime ").append(op)
+                                .append(" :afterTime OR (r.startTime = :afterTime AND r.id ").append(op)
+                                .append(" :afterId)))) ");
+                    }
+                    case "price" -> {
+                        params.put("afterPrice", new BigDecimal(parts[0]));
+                        params.put("afterId", Integer.valueOf(parts[1]));
+                        jpql.append("AND (r.totalPrice ").append(op).append(" :afterPrice ")
+                                .append("OR (r.totalPrice = :afterPrice AND r.id ").append(op).append(" :afterId)) ");
+                    }
+                    default -> {
+                        params.put("afterPeople", Integer.valueOf(parts[0]));
+                        params.put("afterId", Integer.valueOf(parts[1]));
+                        jpql.append("AND (r.numberOfPeople ").append(op).append(" :afterPeople ")
+                                .append("OR (r.numberOfPeople = :afterPeople AND r.id ").append(op)
+                                .append(" :afterId)) ");
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Página no válida");
+            }
+        }
+
+        switch (sortKey(sort)) {
+            case "date" -> jpql.append("ORDER BY r.reservationDate").append(dir)
+                    .append(", r.startTime").append(dir).append(", r.id").append(dir);
+            case "price" -> jpql.append("ORDER BY r.totalPrice").append(dir).append(", r.id").append(dir);
+            default -> jpql.append("ORDER BY r.numberOfPeople").append(dir).append(", r.id").append(dir);
+        }
+
+        TypedQuery<ReservationHistoryDTO> query = entityManager.createQuery(jpql.toString(),
+                ReservationHistoryDTO.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public String cursorOf(ReservationHistoryDTO reservation, String sort) {
+        return switch (sortKey(sort)) {
+            case "date" -> reservation.getReservationDate() + "_" + reservation.getStartTime() + "_"
+                    + reservation.getId();
+            case "price" -> reservation.getTotalPrice().toPlainString() + "_" + reservation.getId();
+            default -> reservation.getNumberOfPeople() + "_" + reservation.getId();
+        };
+    }
+
+    @Override
+    public long countHistory(Integer userId, String filter) {
+        Map<String, Object> params = new HashMap<>();
+        TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT COUNT(r) FROM Reservation r " + where(userId, filter, params), Long.class);
+        params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private static String sortKey(String sort) {
+        if ("price_desc".equals(sort) || "price_asc".equals(sort)) {
+            return "price";
+        }
+        if ("people_desc".equals(sort)) {
+            return "people";
+        }
+        return "date";
+    }
+
+    private static String where(Integer userId, String filter, Map<String, Object> params) {
+        params.put("userId", userId);
+        StringBuilder where = new StringBuilder("WHERE r.user.id = :userId ");
+
+        switch (filter == null ? "all" : filter.toLowerCase()) {
+            case "completed" -> {
+                where.append("AND r.status = :status ");
+                params.put("status", ReservationStatus.COMPLETED);
+            }
+            case "cancelled" -> {
+                where.append("AND r.status = :status ");
+                params.put("status", ReservationStatus.CANCELLED);
+            }
+            case "confirmed" -> {
+                where.append("AND r.status = :status ");
+                params.put("status", ReservationStatus.CONFIRMED);
+            }
+            case "past" -> {
+                where.append("AND (r.reservationDate < :today ")
+                        .append("OR (r.reservationDate = :today AND r.endTime < :now)) ");
+                params.put("today", LocalDate.now());
+                params.put("now", LocalTime.now());
+            }
+            case "upcoming" -> {
+                where.append("AND (r.reservationDate > :today ")
+                        .append("OR (r.reservationDate = :today AND r.startTime > :now)) ");
+                params.put("today", LocalDate.now());
+                params.put("now", LocalTime.now());
+            }
+            default -> {
+                // "all"
+            }
+        }
+        return where.toString();
+    }
+}
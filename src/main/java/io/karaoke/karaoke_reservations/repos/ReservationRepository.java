@@ -2,17 +2,26 @@ package io.karaoke.karaoke_reservations.repos;
 
 import io.karaoke.karaoke_reservations.domain.Reservation;
 import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.dto.BookingCheck;
+import io.karaoke.karaoke_reservations.dto.CalendarReservationDTO;
 import io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ReservationRepository extends JpaRepository<Reservation, Integer> {
+public interface ReservationRepository extends JpaRepository<Reservation, Integer>, ReservationHistoryQueries {
 
        // Reservas por usuario
        List<Reservation> findByUserId(Integer userId);
@@ -26,65 +35,112 @@ public interface ReservationRepository extends JpaRepository<Reservation, Intege
        // Reservas entre fechas
        List<Reservation> findByReservationDateBetween(LocalDate startDate, LocalDate endDate);
 
+       // Calendario: reservas entre fechas con sala y cliente en una sola consulta
+       @Query("SELECT new io.karaoke.karaoke_reservations.dto.CalendarReservationDTO(" +
+                     "r.id, r.reservationDate, r.startTime, r.endTime, r.numberOfPeople, r.status, " +
+                     "room.id, room.name, u.id, u.fullName, u.email, u.phoneNumber) " +
+                     "FROM Reservation r " +
+                     "LEFT JOIN r.room room " +
+                     "LEFT JOIN r.user u " +
+                     "WHERE r.reservationDate BETWEEN :from AND :to " +
+                     "ORDER BY r.reservationDate, r.startTime")
+       List<CalendarReservationDTO> findCalendarReservations(
+                     @Param("from") LocalDate from,
+                     @Param("to") LocalDate to);
+
+       // Una reserva en formato de calendario (avisos en vivo)
+       @Query("SELECT new io.karaoke.karaoke_reservations.dto.CalendarReservationDTO(" +
+                     "r.id, r.reservationDate, r.startTime, r.endTime, r.numberOfPeople, r.status, " +
+                     "room.id, room.name, u.id, u.fullName, u.email, u.phoneNumber) " +
+                     "FROM Reservation r " +
+                     "LEFT JOIN r.room room " +
+                     "LEFT JOIN r.user u " +
+                     "WHERE r.id = :id")
+       Optional<CalendarReservationDTO> findCalendarReservation(@Param("id") Integer id);
+
+       // Mismo calendario leído con cursor, para exportar rangos grandes sin
+       // cargarlos en memoria. Debe consumirse dentro de una transacción.
+       @QueryHints({
+                     @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                     @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+       @Query("SELECT new io.karaoke.karaoke_reservations.dto.CalendarReservationDTO(" +
+                     "r.id, r.reservationDate, r.startTime, r.endTime, r.numberOfPeople, r.status, " +
+                     "room.id, room.name, u.id, u.fullName, u.email, u.phoneNumber) " +
+                     "FROM Reservation r " +
+                     "LEFT JOIN r.room room " +
+                     "LEFT JOIN r.user u " +
+                     "WHERE r.reservationDate BETWEEN :from AND :to " +
+                     "ORDER BY r.reservationDate, r.startTime")
+       Stream<CalendarReservationDTO> streamCalendarReservations(
+                     @Param("from") LocalDate from,
+                     @Param("to") LocalDate to);
+
+       // Calendario de un usuario entre fechas
+       @Query("SELECT new io.karaoke.karaoke_reservations.dto.CalendarReservationDTO(" +
+                     "r.id, r.reservationDate, r.startTime, r.endTime, r.numberOfPeople, r.status, " +
+                     "room.id, room.name, u.id, u.fullName, u.email, u.phoneNumber) " +
+                     "FROM Reservation r " +
+                     "LEFT JOIN r.room room " +
+                     "JOIN r.user u " +
+                     "WHERE u.id = :userId AND r.reservationDate BETWEEN :from AND :to " +
+                     "ORDER BY r.reservationDate, r.startTime")
+       List<CalendarReservationDTO> findCalendarReservationsByUser(
+                     @Param("userId") Integer userId,
+                     @Param("from") LocalDate from,
+                     @Param("to") LocalDate to);
+
        // Reservas por estado
        List<Reservation> findByStatus(ReservationStatus status);
 
        // En ReservationRepository
        List<Reservation> findByRoomIdAndReservationDate(Integer roomId, LocalDate reservationDate);
 
-       // Verificar disponibilidad de sala (reservas que se solapan)
-       @Query("SELECT r FROM Reservation r WHERE r.room.id = :roomId AND r.reservationDate = :date " +
-                     "AND r.status != io.karaoke.karaoke_reservations.domain.ReservationStatus.CANCELLED " +
-                     "AND (" +
-                     // Caso 1: Reserva normal (no cruza medianoche)
-                     "(r.startTime <= r.endTime AND :startTime <= :endTime AND r.startTime < :endTime AND r.endTime > :startTime) "
-                     +
-                     "OR " +
-                     // Caso 2: Reserva existente cruza medianoche, nueva reserva no cruza
-                     "(r.startTime > r.endTime AND :startTime <= :endTime AND (r.startTime < :endTime OR r.endTime > :startTime)) "
-                     +
-                     "OR " +
-                     // Caso 3: Nueva reserva cruza medianoche, reserva existente no cruza
-                     "(r.startTime <= r.endTime AND :startTime > :endTime AND (r.startTime < :endTime OR r.endTime > :startTime)) "
-                     +
-                     "OR " +
-                     // Caso 4: Ambas reservas cruzan medianoche
-                     "(r.startTime > r.endTime AND :startTime > :endTime)" +
-                     ") " +
-                     "AND (:excludeReservationId IS NULL OR r.id != :excludeReservationId)")
-       List<Reservation> findConflictingReservations(
+       // Verificar disponibilidad de sala: un solo && sobre el rango normalizado
+       // time_range (incluye las reservas que cruzan medianoche), servido por
+       // el índice GiST de reservations_room_no_overlap
+       @Query(value = "SELECT EXISTS (SELECT 1 FROM reservations r WHERE r.room_id = :roomId " +
+                     "AND r.status <> 'CANCELLED' " +
+                     "AND r.time_range && tsrange(CAST(:rangeStart AS timestamp), CAST(:rangeEnd AS timestamp), '[)') " +
+                     "AND (CAST(:excludeReservationId AS integer) IS NULL OR r.id <> :excludeReservationId))",
+                     nativeQuery = true)
+       boolean existsOverlappingForRoom(
                      @Param("roomId") Integer roomId,
-                     @Param("date") LocalDate date,
-                     @Param("startTime") LocalTime startTime,
-                     @Param("endTime") LocalTime endTime,
+                     @Param("rangeStart") LocalDateTime rangeStart,
+                     @Param("rangeEnd") LocalDateTime rangeEnd,
                      @Param("excludeReservationId") Integer excludeReservationId);
 
-       // Método para validar conflictos por usuario (incluye medianoche y
-       // excluye CANCELLED)
-       @Query("SELECT r FROM Reservation r WHERE r.user.id = :userId AND r.reservationDate = :date " +
-                     "AND r.status != io.karaoke.karaoke_reservations.domain.ReservationStatus.CANCELLED " +
-                     "AND (" +
-                     // Caso 1: Reserva normal (no cruza medianoche)
-                     "(r.startTime <= r.endTime AND :startTime <= :endTime AND r.startTime < :endTime AND r.endTime > :startTime) "
-                     +
-                     "OR " +
-                     // Caso 2: Reserva existente cruza medianoche, nueva reserva no cruza
-                     "(r.startTime > r.endTime AND :startTime <= :endTime AND (r.startTime < :endTime OR r.endTime > :startTime)) "
-                     +
-                     "OR " +
-                     // Caso 3: Nueva reserva cruza medianoche, reserva existente no cruza
-                     "(r.startTime <= r.endTime AND :startTime > :endTime AND (r.startTime < :endTime OR r.endTime > :startTime)) "
-                     +
-                     "OR " +
-                     // Caso 4: Ambas reservas cruzan medianoche
-                     "(r.startTime > r.endTime AND :startTime > :endTime)" +
-                     ") " +
-                     "AND (:excludeReservationId IS NULL OR r.id != :excludeReservationId)")
-       List<Reservation> findConflictingReservationsByUserComplete(
+       // Conflictos por usuario (excluye CANCELLED), mismo rango normalizado
+       @Query(value = "SELECT EXISTS (SELECT 1 FROM reservations r WHERE r.user_id = :userId " +
+                     "AND r.status <> 'CANCELLED' " +
+                     "AND r.time_range && tsrange(CAST(:rangeStart AS timestamp), CAST(:rangeEnd AS timestamp), '[)') " +
+                     "AND (CAST(:excludeReservationId AS integer) IS NULL OR r.id <> :excludeReservationId))",
+                     nativeQuery = true)
+       boolean existsOverlappingForUser(
                      @Param("userId") Integer userId,
-                     @Param("date") LocalDate date,
-                     @Param("startTime") LocalTime startTime,
-                     @Param("endTime") LocalTime endTime,
+                     @Param("rangeStart") LocalDateTime rangeStart,
+                     @Param("rangeEnd") LocalDateTime rangeEnd,
+                     @Param("excludeReservationId") Integer excludeReservationId);
+
+       // Validación completa de una reserva en un solo viaje: sala (existencia,
+       // disponibilidad y capacidad) y conflictos de sala y de usuario
+       @Query(value = "SELECT (rm.id IS NOT NULL) AS \"roomExists\", " +
+                     "rm.is_available AS \"roomAvailable\", " +
+                     "rm.max_capacity AS \"maxCapacity\", " +
+                     "EXISTS (SELECT 1 FROM reservations r WHERE r.room_id = :roomId " +
+                     "AND r.status <> 'CANCELLED' " +
+                     "AND r.time_range && tsrange(CAST(:rangeStart AS timestamp), CAST(:rangeEnd AS timestamp), '[)') " +
+                     "AND (CAST(:excludeReservationId AS integer) IS NULL OR r.id <> :excludeReservationId)) AS \"roomConflict\", " +
+                     "EXISTS (SELECT 1 FROM reservations r WHERE r.user_id = :userId " +
+                     "AND r.status <> 'CANCELLED' " +
+                     "AND r.time_range && tsrange(CAST(:rangeStart AS timestamp), CAST(:rangeEnd AS timestamp), '[)') " +
+                     "AND (CAST(:excludeReservationId AS integer) IS NULL OR r.id <> :excludeReservationId)) AS \"userConflict\" " +
+                     "FROM (SELECT 1) AS probe LEFT JOIN rooms rm ON rm.id = :roomId",
+                     nativeQuery = true)
+       BookingCheck checkBooking(
+                     @Param("roomId") Integer roomId,
+                     @Param("userId") Integer userId,
+                     @Param("rangeStart") LocalDateTime rangeStart,
+                     @Param("rangeEnd") LocalDateTime rangeEnd,
                      @Param("excludeReservationId") Integer excludeReservationId);
 
        // Reservas futuras de un usuario
@@ -105,4 +161,12 @@ public interface ReservationRepository extends JpaRepository<Reservation, Intege
                      "ORDER BY r.reservationDate DESC, r.startTime DESC")
        List<ReservationHistoryDTO> findReservationHistoryByUserId(@Param("userId") Integer userId);
 
+       // Reservas activas desde una fecha, para cargar el índice de disponibilidad
+       @Query("SELECT new io.karaoke.karaoke_reservations.dto.ReservationSlot(" +
+                     "r.id, r.room.id, r.user.id, r.reservationDate, r.startTime, r.endTime, r.status) " +
+                     "FROM Reservation r " +
+                     "WHERE r.reservationDate >= :from " +
+                     "AND r.status != io.karaoke.karaoke_reservations.domain.ReservationStatus.CANCELLED")
+       List<ReservationSlot> findActiveSlotsFrom(@Param("from") LocalDate from);
+
 }
\ No newline at end of file
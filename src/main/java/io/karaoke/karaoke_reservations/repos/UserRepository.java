@@ -4,20 +4,29 @@ import io.karaoke.karaoke_reservations.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
 
-    boolean existsByEmailIgnoreCase(String email);
-    
     List<User> findByAdminTrue(); 
     
     List<User> findByAdminFalse(); 
     
-    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    // Los emails se guardan normalizados: comparar igualdad usa el índice único.
+    // El parámetro debe venir normalizado (UserCache.normalize).
+    @Query("SELECT u FROM User u WHERE u.email = :email")
     Optional<User> findByEmail(@Param("email") String email);
     
-    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM User u WHERE u.email = :email")
     boolean existsByEmail(@Param("email") String email);
-}
\ No newline at end of file
+
+    // Emails de todos los usuarios, para armar el filtro de emails
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllNormalizedEmails();
+
+    // Varios usuarios por email normalizado en una sola consulta (importación)
+    @Query("SELECT u FROM User u WHERE u.email IN :emails")
+    List<User> findByEmailIn(@Param("emails") Collection<String> emails);
+}
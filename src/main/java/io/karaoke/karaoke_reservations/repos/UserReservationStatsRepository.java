@@ -0,0 +1,91 @@
+package io.karaoke.karaoke_reservations.repos;
+
+import io.karaoke.karaoke_reservations.domain.UserReservationStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface UserReservationStatsRepository extends JpaRepository<UserReservationStats, Integer> {
+
+       // Las actualizaciones nativas declaran la tabla que tocan; sin eso Hibernate
+       // vaciaría toda la cache de segundo nivel (salas y extras) en cada cambio.
+
+       // Aplica un cambio sobre la fila del usuario; devuelve 0 si la fila aún no existe.
+       // Si una reserva deja de estar completada, la última visita se recalcula.
+       @Modifying(flushAutomatically = true)
+       @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_reservation_stats"))
+       @Query(value = "UPDATE user_reservation_stats SET " +
+                     "confirmed_count = confirmed_count + :confirmedDelta, " +
+                     "cancelled_count = cancelled_count + :cancelledDelta, " +
+                     "completed_count = completed_count + :completedDelta, " +
+                     "total_spent = total_spent + :spentDelta, " +
+                     "last_visit = CASE WHEN :recomputeVisit THEN " +
+                     "(SELECT MAX(r.reservation_date) FROM reservations r " +
+                     "WHERE r.user_id = :userId AND r.status = 'COMPLETED') " +
+                     "ELSE GREATEST(last_visit, CAST(:visit AS date)) END, " +
+                     "last_updated = now() " +
+                     "WHERE user_id = :userId",
+                     nativeQuery = true)
+       int applyDelta(
+                     @Param("userId") Integer userId,
+                     @Param("confirmedDelta") long confirmedDelta,
+                     @Param("cancelledDelta") long cancelledDelta,
+                     @Param("completedDelta") long completedDelta,
+                     @Param("spentDelta") BigDecimal spentDelta,
+                     @Param("visit") LocalDate visit,
+                     @Param("recomputeVisit") boolean recomputeVisit);
+
+       // Recalcula la fila de un usuario desde sus reservas
+       @Modifying(flushAutomatically = true)
+       @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_reservation_stats"))
+       @Query(value = "INSERT INTO user_reservation_stats " +
+                     "(user_id, confirmed_count, cancelled_count, completed_count, total_spent, last_visit, last_updated) " +
+                     "SELECT :userId, " +
+                     "COUNT(*) FILTER (WHERE r.status = 'CONFIRMED'), " +
+                     "COUNT(*) FILTER (WHERE r.status = 'CANCELLED'), " +
+                     "COUNT(*) FILTER (WHERE r.status = 'COMPLETED'), " +
+                     "COALESCE(SUM(r.total_price) FILTER (WHERE r.status = 'COMPLETED'), 0), " +
+                     "MAX(r.reservation_date) FILTER (WHERE r.status = 'COMPLETED'), " +
+                     "now() " +
+                     "FROM reservations r WHERE r.user_id = :userId " +
+                     "ON CONFLICT (user_id) DO UPDATE SET " +
+                     "confirmed_count = EXCLUDED.confirmed_count, " +
+                     "cancelled_count = EXCLUDED.cancelled_count, " +
+                     "completed_count = EXCLUDED.completed_count, " +
+                     "total_spent = EXCLUDED.total_spent, " +
+                     "last_visit = EXCLUDED.last_visit, " +
+                     "last_updated = EXCLUDED.last_updated",
+                     nativeQuery = true)
+       int rebuildForUser(@Param("userId") Integer userId);
+
+       // Recalcula las filas de todos los usuarios (backfill)
+       @Modifying(flushAutomatically = true)
+       @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_reservation_stats"))
+       @Query(value = "INSERT INTO user_reservation_stats " +
+                     "(user_id, confirmed_count, cancelled_count, completed_count, total_spent, last_visit, last_updated) " +
+                     "SELECT u.id, " +
+                     "COUNT(r.id) FILTER (WHERE r.status = 'CONFIRMED'), " +
+                     "COUNT(r.id) FILTER (WHERE r.status = 'CANCELLED'), " +
+                     "COUNT(r.id) FILTER (WHERE r.status = 'COMPLETED'), " +
+                     "COALESCE(SUM(r.total_price) FILTER (WHERE r.status = 'COMPLETED'), 0), " +
+                     "MAX(r.reservation_date) FILTER (WHERE r.status = 'COMPLETED'), " +
+                     "now() " +
+                     "FROM users u LEFT JOIN reservations r ON r.user_id = u.id " +
+                     "GROUP BY u.id " +
+                     "ON CONFLICT (user_id) DO UPDATE SET " +
+                     "confirmed_count = EXCLUDED.confirmed_count, " +
+                     "cancelled_count = EXCLUDED.cancelled_count, " +
+                     "completed_count = EXCLUDED.completed_count, " +
+                     "total_spent = EXCLUDED.total_spent, " +
+                     "last_visit = EXCLUDED.last_visit, " +
+                     "last_updated = EXCLUDED.last_updated",
+                     nativeQuery = true)
+       int rebuildAll();
+}
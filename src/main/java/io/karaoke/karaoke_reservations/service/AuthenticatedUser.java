@@ -0,0 +1,36 @@
+package io.karaoke.karaoke_reservations.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Usuario autenticado guardado en la sesión. Además del email y los roles
+ * lleva el id, el nombre y si es administrador, para que los controladores
+ * no tengan que buscar al usuario en la base de datos en cada petición.
+ */
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer id;
+    private final String fullName;
+    private final boolean admin;
+
+    public AuthenticatedUser(Integer id, String email, String password, String fullName, boolean admin,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+        this.fullName = fullName;
+        this.admin = admin;
+    }
+
+    public Integer getId() { return id; }
+
+    public String getEmail() { return getUsername(); }
+
+    public String getFullName() { return fullName; }
+
+    public boolean isAdmin() { return admin; }
+}
@@ -0,0 +1,308 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
+import io.karaoke.karaoke_reservations.repos.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de las reservas activas (no canceladas) por sala y por
+ * usuario. Se carga al iniciar la aplicación desde ayer en adelante y se
+ * actualiza después de cada commit que cambia una reserva, de modo que las
+ * consultas de disponibilidad no van a la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityIndex {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = ReservationSlot.MINUTES_PER_DAY / SLOT_MINUTES;
+
+    private final ReservationRepository reservationRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Timeline> byRoom = new HashMap<>();
+    private final Map<Integer, Timeline> byUser = new HashMap<>();
+    private final Map<Integer, ReservationSlot> byId = new HashMap<>();
+    // Ocupación por sala y día en bloques de 15 minutos, calculada bajo demanda
+    private final Map<Long, BitSet> occupancyByRoomAndDay = new ConcurrentHashMap<>();
+
+    // Primer día cubierto por el índice; null mientras no se haya cargado
+    private volatile LocalDate coveredFrom;
+    // Cambios recibidos mientras se consulta la BD en una carga; null fuera de una carga
+    private List<ReservationChanged> pendingDuringLoad;
+
+    /**
+     * Carga el índice desde la BD. Los cambios que llegan mientras corre la
+     * consulta se guardan y se vuelven a aplicar sobre la foto nueva, así no
+     * se pierde ninguno: aplicar dos veces el mismo cambio da el mismo
+     * resultado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate from = LocalDate.now().minusDays(1);
+        lock.writeLock().lock();
+        try {
+            pendingDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ReservationSlot> slots;
+        try {
+            slots = reservationRepository.findActiveSlotsFrom(from);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            byRoom.clear();
+            byUser.clear();
+            byId.clear();
+            occupancyByRoomAndDay.clear();
+            slots.forEach(this::add);
+            replayed = pendingDuringLoad.size();
+            pendingDuringLoad.forEach(this::apply);
+            pendingDuringLoad = null;
+            coveredFrom = from;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de disponibilidad cargado: {} reservas desde {} ({} cambios durante la carga)",
+                slots.size(), from, replayed);
+    }
+
+    // Recarga nocturna: descarta días pasados y corrige cualquier desfase
+    @Scheduled(cron = "${karaoke.availability.reload-cron:0 5 0 * * *}")
+    public void reload() {
+        load();
+    }
+
+    public boolean covers(LocalDate date) {
+        LocalDate from = coveredFrom;
+        return from != null && !date.isBefore(from);
+    }
+
+    public boolean hasRoomConflict(Integer roomId, LocalDate date, LocalTime startTime, LocalTime endTime,
+            Integer excludeReservationId) {
+        return !findRoomConflicts(roomId, date, startTime, endTime, excludeReservationId).isEmpty();
+    }
+
+    public boolean hasUserConflict(Integer userId, LocalDate date, LocalTime startTime, LocalTime endTime,
+            Integer excludeReservationId) {
+        return !findConflicts(byUser, userId, date, startTime, endTime, excludeReservationId).isEmpty();
+    }
+
+    public List<ReservationSlot> findRoomConflicts(Integer roomId, LocalDate date, LocalTime startTime,
+            LocalTime endTime, Integer excludeReservationId) {
+        return findConflicts(byRoom, roomId, date, startTime, endTime, excludeReservationId);
+    }
+
+    private List<ReservationSlot> findConflicts(Map<Integer, Timeline> timelines, Integer key, LocalDate date,
+            LocalTime startTime, LocalTime endTime, Integer excludeReservationId) {
+        long start = ReservationSlot.startOf(date, startTime);
+        long end = ReservationSlot.endOf(date, startTime, endTime);
+
+        lock.readLock().lock();
+        try {
+            Timeline timeline = timelines.get(key);
+            if (timeline == null) {
+                return List.of();
+            }
+            List<ReservationSlot> conflicts = timeline.overlapping(start, end);
+            if (excludeReservationId != null) {
+                conflicts.removeIf(slot -> excludeReservationId.equals(slot.getId()));
+            }
+            return conflicts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intervalos ocupados de una sala que tocan [from, to), en minutos
+     * absolutos, ordenados y fusionados cuando se solapan o se tocan.
+     */
+    public List<long[]> busyIntervals(Integer roomId, long from, long to) {
+        List<ReservationSlot> slots;
+        lock.readLock().lock();
+        try {
+            Timeline timeline = byRoom.get(roomId);
+            slots = timeline != null ? timeline.overlapping(from, to) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<long[]> merged = new ArrayList<>();
+        for (ReservationSlot slot : slots) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && slot.getStart() <= last[1]) {
+                last[1] = Math.max(last[1], slot.getEnd());
+            } else {
+                merged.add(new long[] { slot.getStart(), slot.getEnd() });
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Bloques de 15 minutos ocupados de una sala en un día (bit i = desde
+     * i*15 minutos después de medianoche). Incluye la parte de reservas del
+     * día anterior que cruzan medianoche.
+     */
+    public BitSet occupancy(Integer roomId, LocalDate date) {
+        long key = occupancyKey(roomId, date.toEpochDay());
+        lock.readLock().lock();
+        try {
+            // Solo se guardan los días que se pueden reservar: el resto se calcula y se descarta
+            if (date.isAfter(LocalDate.now().plusDays(ReservationService.MAX_DAYS_ADVANCE + 1L))) {
+                return computeOccupancy(roomId, date);
+            }
+            BitSet busy = occupancyByRoomAndDay.computeIfAbsent(key, k -> computeOccupancy(roomId, date));
+            return (BitSet) busy.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet computeOccupancy(Integer roomId, LocalDate date) {
+        BitSet busy = new BitSet(SLOTS_PER_DAY);
+        Timeline timeline = byRoom.get(roomId);
+        if (timeline == null) {
+            return busy;
+        }
+        long dayStart = date.toEpochDay() * ReservationSlot.MINUTES_PER_DAY;
+        long dayEnd = dayStart + ReservationSlot.MINUTES_PER_DAY;
+        for (ReservationSlot slot : timeline.overlapping(dayStart, dayEnd)) {
+            long from = Math.max(slot.getStart(), dayStart) - dayStart;
+            long to = Math.min(slot.getEnd(), dayEnd) - dayStart;
+            busy.set((int) (from / SLOT_MINUTES), (int) ((to + SLOT_MINUTES - 1) / SLOT_MINUTES));
+        }
+        return busy;
+    }
+
+    private static long occupancyKey(Integer roomId, long epochDay) {
+        return ((long) roomId << 32) | (epochDay & 0xffffffffL);
+    }
+
+    private void invalidateOccupancy(ReservationSlot slot) {
+        long lastDay = (slot.getEnd() - 1) / ReservationSlot.MINUTES_PER_DAY;
+        for (long day = slot.getStart() / ReservationSlot.MINUTES_PER_DAY; day <= lastDay; day++) {
+            occupancyByRoomAndDay.remove(occupancyKey(slot.getRoomId(), day));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChanged event) {
+        applyAll(List.of(event));
+    }
+
+    // Un lote entero con una sola toma del bloqueo de escritura
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChanged event) {
+        applyAll(event.changes());
+    }
+
+    private void applyAll(List<ReservationChanged> events) {
+        lock.writeLock().lock();
+        try {
+            events.forEach(this::apply);
+            if (pendingDuringLoad != null) {
+                pendingDuringLoad.addAll(events);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(ReservationChanged event) {
+        ReservationSlot slot = event.getSlot();
+        remove(slot.getId());
+        if (event.getAction() != ReservationChanged.Action.DELETED && slot.isActive()) {
+            add(slot);
+        }
+    }
+
+    private void add(ReservationSlot slot) {
+        byId.put(slot.getId(), slot);
+        invalidateOccupancy(slot);
+        byRoom.computeIfAbsent(slot.getRoomId(), k -> new Timeline()).add(slot);
+        byUser.computeIfAbsent(slot.getUserId(), k -> new Timeline()).add(slot);
+    }
+
+    private void remove(Integer reservationId) {
+        ReservationSlot previous = byId.remove(reservationId);
+        if (previous != null) {
+            invalidateOccupancy(previous);
+            byRoom.get(previous.getRoomId()).remove(previous);
+            byUser.get(previous.getUserId()).remove(previous);
+        }
+    }
+
+    /**
+     * Intervalos ordenados por minuto de inicio. Como las reservas duran a lo
+     * sumo unas horas, basta con revisar los que empiezan dentro de
+     * [inicio - duración máxima, fin).
+     */
+    private static class Timeline {
+
+        private final NavigableMap<Long, List<ReservationSlot>> byStart = new TreeMap<>();
+        private long maxLength;
+
+        void add(ReservationSlot slot) {
+            byStart.computeIfAbsent(slot.getStart(), k -> new ArrayList<>(1)).add(slot);
+            maxLength = Math.max(maxLength, slot.getEnd() - slot.getStart());
+        }
+
+        void remove(ReservationSlot slot) {
+            List<ReservationSlot> sameStart = byStart.get(slot.getStart());
+            if (sameStart != null) {
+                sameStart.removeIf(s -> s.getId().equals(slot.getId()));
+                if (sameStart.isEmpty()) {
+                    byStart.remove(slot.getStart());
+                }
+            }
+        }
+
+        List<ReservationSlot> overlapping(long start, long end) {
+            List<ReservationSlot> result = new ArrayList<>();
+            for (List<ReservationSlot> sameStart : byStart.subMap(start - maxLength, true, end, false).values()) {
+                for (ReservationSlot slot : sameStart) {
+                    if (slot.overlaps(start, end)) {
+                        result.add(slot);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloqueos para crear reservas sin doble reserva y sin serializar todo el
+ * local. Se bloquea por (sala, día) —y el día siguiente si la reserva cruza
+ * medianoche— y por usuario, siempre en el mismo orden para evitar
+ * interbloqueos. Los bloqueos se mantienen hasta que termina la transacción.
+ *
+ * Modo "local": locks en memoria repartidos en franjas (una sola instancia).
+ * Modo "advisory": pg_advisory_xact_lock de Postgres (varias instancias).
+ */
+@Component
+@Slf4j
+public class BookingLockManager {
+
+    private static final long ROOM_DAY_NAMESPACE = 1L << 62;
+    private static final long USER_NAMESPACE = 2L << 62;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean advisory;
+    private final long timeoutMillis;
+    private final ReentrantLock[] stripes;
+
+    public BookingLockManager(JdbcTemplate jdbcTemplate,
+            @Value("${karaoke.booking.lock-mode:local}") String lockMode,
+            @Value("${karaoke.booking.lock-stripes:256}") int stripeCount,
+            @Value("${karaoke.booking.lock-timeout-ms:5000}") long timeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.advisory = "advisory".equalsIgnoreCase(lockMode);
+        this.timeoutMillis = timeoutMillis;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        log.info("Bloqueo de reservas en modo {}", advisory ? "advisory" : "local");
+    }
+
+    /**
+     * Bloquea la sala en los días que ocupa el horario y al usuario hasta el
+     * fin de la transacción actual.
+     */
+    public void lockForBooking(Integer roomId, Integer userId, LocalDate date, LocalTime startTime,
+            LocalTime endTime) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo de reservas requiere una transacción activa");
+        }
+
+        SortedSet<Long> keys = new TreeSet<>();
+        addKeys(keys, roomId, userId, date, startTime, endTime);
+        lock(keys);
+    }
+
+    /**
+     * Igual que lockForBooking para un lote (importación): junta las claves
+     * de todas las reservas y las bloquea una sola vez, en el mismo orden
+     * global, para no cruzarse con las reservas individuales.
+     */
+    public void lockForBookings(Collection<Reservation> reservations) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo de reservas requiere una transacción activa");
+        }
+
+        SortedSet<Long> keys = new TreeSet<>();
+        for (Reservation reservation : reservations) {
+            addKeys(keys, reservation.getRoom().getId(), reservation.getUser().getId(),
+                    reservation.getReservationDate(), reservation.getStartTime(), reservation.getEndTime());
+        }
+        lock(keys);
+    }
+
+    private static void addKeys(SortedSet<Long> keys, Integer roomId, Integer userId, LocalDate date,
+            LocalTime startTime, LocalTime endTime) {
+        keys.add(roomDayKey(roomId, date));
+        if (endTime.isBefore(startTime)) {
+            keys.add(roomDayKey(roomId, date.plusDays(1)));
+        }
+        keys.add(USER_NAMESPACE | userId);
+    }
+
+    private void lock(SortedSet<Long> keys) {
+        if (advisory) {
+            lockAdvisory(keys);
+        } else {
+            lockLocal(keys);
+        }
+    }
+
+    private static long roomDayKey(Integer roomId, LocalDate date) {
+        return ROOM_DAY_NAMESPACE | ((long) roomId << 24) | (date.toEpochDay() & 0xFFFFFFL);
+    }
+
+    private void lockAdvisory(SortedSet<Long> keys) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + timeoutMillis + "ms'");
+        for (Long key : keys) {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> { }, key);
+        }
+    }
+
+    // Franjas que toma una reserva en modo local (las pruebas eligen reservas sin franjas en común)
+    SortedSet<Integer> stripesFor(Integer roomId, Integer userId, LocalDate date, LocalTime startTime,
+            LocalTime endTime) {
+        SortedSet<Long> keys = new TreeSet<>();
+        addKeys(keys, roomId, userId, date, startTime, endTime);
+        return stripeIndexes(keys);
+    }
+
+    // Distintas claves pueden caer en la misma franja: se bloquea cada franja una vez, en orden
+    private SortedSet<Integer> stripeIndexes(SortedSet<Long> keys) {
+        SortedSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Long key : keys) {
+            stripeIndexes.add(Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), stripes.length));
+        }
+        return stripeIndexes;
+    }
+
+    private void lockLocal(SortedSet<Long> keys) {
+        SortedSet<Integer> stripeIndexes = stripeIndexes(keys);
+
+        Deque<ReentrantLock> acquired = new ArrayDeque<>();
+        try {
+            for (Integer index : stripeIndexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new IllegalArgumentException(
+                            "Hay muchas reservas en proceso para esta sala, intenta nuevamente");
+                }
+                acquired.push(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Reserva interrumpida, intenta nuevamente");
+        } finally {
+            if (acquired.size() < stripeIndexes.size()) {
+                acquired.forEach(ReentrantLock::unlock);
+            }
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                acquired.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+}
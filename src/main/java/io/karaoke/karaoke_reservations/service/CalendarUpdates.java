@@ -0,0 +1,238 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
+import io.karaoke.karaoke_reservations.repos.ReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Canal Server-Sent Events para los calendarios abiertos. Después de cada
+ * commit que cambia una reserva se envía un aviso pequeño (acción y la reserva
+ * en formato de calendario) en lugar de que el navegador recargue todo.
+ *
+ * Los cambios se juntan durante una ventana corta: si llegan muchos a la vez
+ * (una importación, el autocompletado) se manda un solo aviso "reload" con
+ * el rango de fechas y el navegador recarga lo que ve, sin una consulta por
+ * reserva. Cada cliente tiene su propia cola y su propio hilo virtual para
+ * enviar, así un cliente lento no frena a los demás; si su cola se llena se
+ * cierra su conexión (el navegador reconecta y recarga).
+ */
+@Component
+@Slf4j
+public class CalendarUpdates {
+
+    private static final long COALESCE_MILLIS = 200;
+    private static final int MAX_DELTAS_PER_WINDOW = 20;
+    private static final int OUTBOX_CAPACITY = 64;
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final long timeoutMillis;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Queue<ReservationChanged> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("calendar-updates").factory());
+
+    public CalendarUpdates(ReservationRepository reservationRepository, ReservationService reservationService,
+            @Value("${karaoke.calendar.sse-timeout-ms:1800000}") long timeoutMillis) {
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Suscribe un calendario. Los administradores reciben todas las reservas;
+     * el resto, solo las propias.
+     */
+    public SseEmitter subscribe(Integer userId, boolean admin) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, userId, admin);
+        subscribers.add(subscriber);
+        subscriber.sender = Thread.ofVirtual().name("calendar-sse-" + userId).start(() -> deliver(subscriber));
+
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChanged event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        pending.add(event);
+        scheduleFlush();
+    }
+
+    // Un lote grande termina en el mismo aviso "reload" que muchos cambios sueltos
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChanged event) {
+        if (subscribers.isEmpty() || event.getSlots().isEmpty()) {
+            return;
+        }
+        pending.addAll(event.changes());
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                try {
+                    Thread.sleep(COALESCE_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // Lo que llegue desde aquí programa otra ventana
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    // Mantiene viva la conexión en proxies y detecta clientes que se fueron
+    @Scheduled(fixedDelayString = "${karaoke.calendar.sse-heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach(s -> enqueue(s, SseEmitter.event().comment("ping")));
+    }
+
+    private void flush() {
+        List<ReservationChanged> events = new ArrayList<>();
+        for (ReservationChanged event; (event = pending.poll()) != null; ) {
+            events.add(event);
+        }
+        if (events.size() > MAX_DELTAS_PER_WINDOW) {
+            sendReload(events.stream().map(ReservationChanged::getSlot).toList());
+        } else {
+            events.forEach(this::dispatch);
+        }
+    }
+
+    private void dispatch(ReservationChanged event) {
+        ReservationSlot slot = event.getSlot();
+
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("action", event.getAction().name());
+        delta.put("id", slot.getId());
+        delta.put("reservationDate", slot.getReservationDate().toString());
+        delta.put("previousStatus", event.getPreviousStatus() != null
+                ? event.getPreviousStatus().name().toLowerCase() : null);
+        if (event.getAction() != ReservationChanged.Action.DELETED) {
+            reservationRepository.findCalendarReservation(slot.getId())
+                    .ifPresent(r -> delta.put("reservation", reservationService.adminCalendarItem(r)));
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.admin || slot.getUserId().equals(subscriber.userId)) {
+                enqueue(subscriber, SseEmitter.event().name("reservation").data(delta));
+            }
+        }
+    }
+
+    // Un solo aviso para muchos cambios: el calendario recarga si el rango le afecta
+    private void sendReload(List<ReservationSlot> slots) {
+        LocalDate from = slots.stream().map(ReservationSlot::getReservationDate)
+                .min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = slots.stream().map(ReservationSlot::getReservationDate)
+                .max(LocalDate::compareTo).orElseThrow();
+        Set<Integer> userIds = slots.stream().map(ReservationSlot::getUserId).collect(Collectors.toSet());
+
+        Map<String, Object> reload = new HashMap<>();
+        reload.put("from", from.toString());
+        reload.put("to", to.toString());
+        reload.put("count", slots.size());
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.admin || userIds.contains(subscriber.userId)) {
+                enqueue(subscriber, SseEmitter.event().name("reload").data(reload));
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.outbox.offer(event)) {
+            log.debug("Cliente de calendario lento (usuario {}): se cierra la conexión", subscriber.userId);
+            close(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    // Hilo de envío de un cliente: solo este hilo se bloquea si el cliente no lee
+    private void deliver(Subscriber subscriber) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                SseEmitter.SseEventBuilder event = subscriber.outbox.take();
+                subscriber.emitter.send(event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // El cliente cerró la conexión
+            close(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.outbox.clear();
+            Thread sender = subscriber.sender;
+            if (sender != null && sender != Thread.currentThread()) {
+                sender.interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            close(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Integer userId;
+        private final boolean admin;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+        private volatile Thread sender;
+
+        Subscriber(SseEmitter emitter, Integer userId, boolean admin) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.admin = admin;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.karaoke.karaoke_reservations.service;
 
 import io.karaoke.karaoke_reservations.domain.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -19,17 +20,15 @@ public class CustomUserDetailsService implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("Usuario no encontrado con email: " + email);
         }
-        
-        org.springframework.security.core.userdetails.User.UserBuilder userBuilder = org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword());
 
-        if (user.isAdmin()) {
-            userBuilder.roles("ADMIN", "USER");
-        } else {
-            userBuilder.roles("USER");
-        }
-
-        return userBuilder.build();
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                user.getFullName(),
+                user.isAdmin(),
+                user.isAdmin()
+                        ? AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER")
+                        : AuthorityUtils.createAuthorityList("ROLE_USER"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
+import io.karaoke.karaoke_reservations.events.RoomChanged;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versión de reservas y salas. Se incrementan después
+ * del commit de cada cambio y sirven como ETag de las APIs JSON, de modo que
+ * una petición condicional se responde sin consultar la base de datos. La
+ * versión de los extras es la generación de ExtraCatalog.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersions {
+
+    private final ExtraCatalog extraCatalog;
+
+    // Distingue los contadores de cada arranque: tras reiniciar, los ETag viejos no coinciden
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong rooms = new AtomicLong();
+
+    public String reservationsTag() {
+        return bootId + "-" + reservations.get();
+    }
+
+    // La disponibilidad de las salas depende también de las reservas
+    public String roomsTag() {
+        return bootId + "-" + rooms.get() + "-" + reservations.get();
+    }
+
+    // Cambia cuando el catálogo detecta un cambio en la tabla de extras
+    public String extrasTag() {
+        return bootId + "-" + extraCatalog.generation();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChanged event) {
+        reservations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChanged event) {
+        reservations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomChanged(RoomChanged event) {
+        rooms.incrementAndGet();
+    }
+}
@@ -0,0 +1,189 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.repos.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom con los emails registrados (normalizados). Si el filtro
+ * dice que un email no está, seguro no está y no se consulta la base de
+ * datos; si dice que puede estar, se confirma con una consulta.
+ *
+ * Se arma al iniciar y cada noche (así se van los usuarios borrados y se
+ * ajusta el tamaño). Los emails nuevos se agregan después del commit; los que
+ * llegan mientras se arma el filtro se agregan también al nuevo.
+ *
+ * Es una optimización para una sola instancia: un email registrado en otro
+ * nodo no llega a este filtro hasta la reconstrucción nocturna, y mientras
+ * tanto daría un falso "no existe". Con varias instancias se desactiva con
+ * karaoke.users.email-filter-enabled=false: el filtro no se arma y cada
+ * verificación va a la búsqueda indexada en la base de datos.
+ */
+@Component
+@Slf4j
+public class EmailFilter {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final UserRepository userRepository;
+    private final int minCapacity;
+    private final boolean enabled;
+    private final Counter negatives;
+    private final Counter positives;
+
+    // null mientras no se haya cargado: todo se confirma en la base de datos
+    private volatile Bloom current;
+    private volatile Bloom building;
+
+    public EmailFilter(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${karaoke.users.email-filter-capacity:10000}") int minCapacity,
+            @Value("${karaoke.users.email-filter-enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.minCapacity = minCapacity;
+        this.enabled = enabled;
+        this.negatives = Counter.builder("karaoke.users.email_filter")
+                .tag("result", "negative")
+                .description("Verificaciones de email respondidas sin consultar la base de datos")
+                .register(meterRegistry);
+        this.positives = Counter.builder("karaoke.users.email_filter")
+                .tag("result", "maybe")
+                .description("Verificaciones de email confirmadas con una consulta")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            log.info("Filtro de emails desactivado: se consulta la base de datos");
+            return;
+        }
+        long count = userRepository.count();
+        Bloom bloom = new Bloom(Math.max(minCapacity, 2 * count), FALSE_POSITIVE_RATE);
+        building = bloom;
+        try {
+            List<String> emails = userRepository.findAllNormalizedEmails();
+            emails.forEach(bloom::add);
+            current = bloom;
+            log.info("Filtro de emails cargado: {} emails, {} bits", emails.size(), bloom.bitCount());
+        } finally {
+            building = null;
+        }
+    }
+
+    @Scheduled(cron = "${karaoke.users.email-filter-rebuild-cron:0 15 0 * * *}")
+    public void reload() {
+        load();
+    }
+
+    // false solo si el email seguro no está registrado
+    public boolean mightContain(String normalizedEmail) {
+        Bloom bloom = current;
+        if (bloom != null && !bloom.mightContain(normalizedEmail)) {
+            negatives.increment();
+            return false;
+        }
+        positives.increment();
+        return true;
+    }
+
+    // Agrega el email cuando la transacción confirma (o de inmediato si no hay transacción)
+    public void add(String normalizedEmail) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addNow(normalizedEmail);
+                }
+            });
+        } else {
+            addNow(normalizedEmail);
+        }
+    }
+
+    private void addNow(String normalizedEmail) {
+        Bloom bloom = current;
+        if (bloom != null) {
+            bloom.add(normalizedEmail);
+        }
+        Bloom next = building;
+        if (next != null) {
+            next.add(normalizedEmail);
+        }
+    }
+
+    /**
+     * Arreglo de bits con k posiciones por elemento, derivadas de dos hashes
+     * de 64 bits (h1 + i * h2). Seguro para varios hilos: solo se encienden bits.
+     */
+    private static final class Bloom {
+
+        private final AtomicLongArray bits;
+        private final long bitSize;
+        private final int hashes;
+
+        Bloom(long expected, double falsePositiveRate) {
+            long size = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (size + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitSize = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitSize / expected * Math.log(2)));
+        }
+
+        void add(String value) {
+            long[] h = hash(value);
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h[0] + i * h[1], bitSize);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long old;
+                do {
+                    old = bits.get(word);
+                } while ((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long[] h = hash(value);
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h[0] + i * h[1], bitSize);
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long bitCount() {
+            return bitSize;
+        }
+
+        private static long[] hash(String value) {
+            long h1 = 0x9E3779B97F4A7C15L;
+            long h2 = 0xC2B2AE3D27D4EB4FL;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h1 = (h1 ^ b) * 0x100000001B3L;
+                h2 = Long.rotateLeft(h2 ^ b, 31) * 0x9E3779B97F4A7C15L;
+            }
+            // h2 impar para recorrer todas las posiciones
+            return new long[] { mix(h1), mix(h2) | 1L };
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+            z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Extra;
+import io.karaoke.karaoke_reservations.dto.ExtraDTO;
+import io.karaoke.karaoke_reservations.repos.ExtraRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo de extras en memoria, igual que RoomCatalog: una foto inmutable
+ * con los DTO, un índice por tipo (sin distinguir mayúsculas) y la lista de
+ * tipos ya calculada.
+ *
+ * Los extras no se editan desde la aplicación sino directamente en la base
+ * de datos, así que no hay un evento que avise. Cada cierto tiempo se compara
+ * una huella de la tabla (una sola consulta pequeña) y, si cambió, se
+ * descarta la foto y la siguiente lectura la recarga. La generación sirve
+ * también como ETag de /api/extras (ver DataVersions).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExtraCatalog {
+
+    private final ExtraRepository extraRepository;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    // Huella de la tabla en la última revisión; null antes de la primera
+    private volatile String fingerprint;
+
+    public List<ExtraDTO> findAll() {
+        return snapshot().all();
+    }
+
+    public Optional<ExtraDTO> findById(Integer id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public List<ExtraDTO> findByType(String type) {
+        if (type == null) {
+            return List.of();
+        }
+        return snapshot().byType().getOrDefault(typeKey(type), List.of());
+    }
+
+    public List<String> findDistinctTypes() {
+        return snapshot().types();
+    }
+
+    @Scheduled(fixedDelayString = "${karaoke.extras.refresh-ms:60000}")
+    public void refresh() {
+        String latest = extraRepository.fingerprint();
+        if (!latest.equals(fingerprint)) {
+            if (fingerprint != null) {
+                log.info("Cambiaron los extras en la base de datos: se recarga el catálogo");
+            }
+            fingerprint = latest;
+            invalidate();
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        current.set(null);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && snapshot.generation() == generation.get()) {
+            return snapshot;
+        }
+        long loadedGeneration = generation.get();
+        Snapshot loaded = Snapshot.of(loadedGeneration, extraRepository.findAll());
+        current.set(loaded);
+        return loaded;
+    }
+
+    private static String typeKey(String type) {
+        return type.toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot(long generation, List<ExtraDTO> all, Map<Integer, ExtraDTO> byId,
+            Map<String, List<ExtraDTO>> byType, List<String> types) {
+
+        static Snapshot of(long generation, List<Extra> extras) {
+            List<ExtraDTO> all = extras.stream()
+                    .sorted(Comparator.comparing(Extra::getId))
+                    .map(ExtraDTO::new)
+                    .collect(Collectors.toUnmodifiableList());
+            Map<Integer, ExtraDTO> byId = all.stream()
+                    .collect(Collectors.toUnmodifiableMap(ExtraDTO::getId, Function.identity()));
+            Map<String, List<ExtraDTO>> byType = all.stream()
+                    .collect(Collectors.collectingAndThen(
+                            Collectors.groupingBy(e -> typeKey(e.getType()),
+                                    Collectors.toUnmodifiableList()),
+                            Map::copyOf));
+            List<String> types = all.stream()
+                    .map(ExtraDTO::getType)
+                    .distinct()
+                    .collect(Collectors.toUnmodifiableList());
+            return new Snapshot(generation, all, byId, byType, types);
+        }
+    }
+}
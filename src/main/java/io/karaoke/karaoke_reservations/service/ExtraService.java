@@ -9,7 +9,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,18 +16,15 @@ import java.util.stream.Collectors;
 public class ExtraService {
 
     private final ExtraRepository extraRepository;
+    private final ExtraCatalog extraCatalog;
 
-    // Método que retorna DTOs en lugar de entidades
+    // Método que retorna DTOs en lugar de entidades (desde el catálogo en memoria)
     public List<ExtraDTO> findAll() {
-        return extraRepository.findAll().stream()
-                .map(ExtraDTO::new) 
-                .collect(Collectors.toList());
+        return extraCatalog.findAll();
     }
 
     public List<ExtraDTO> findByType(String type) {
-        return extraRepository.findByTypeIgnoreCase(type).stream()
-                .map(ExtraDTO::new)
-                .collect(Collectors.toList());
+        return extraCatalog.findByType(type);
     }
 
     public Optional<Extra> findById(Integer id) {
@@ -40,9 +36,6 @@ public class ExtraService {
     }
 
     public List<String> findDistinctTypes() {
-        return extraRepository.findAll().stream()
-                .map(Extra::getType)
-                .distinct()
-                .collect(Collectors.toList()); 
+        return extraCatalog.findDistinctTypes();
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.dto.ExtraDTO;
+import io.karaoke.karaoke_reservations.dto.PriceQuoteDTO;
+import io.karaoke.karaoke_reservations.dto.RoomDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Precio de una reserva a partir de los catálogos en memoria de salas y
+ * extras. Usa la misma regla que Reservation al guardar (duración con cruce
+ * de medianoche, precio por hora exacto en BigDecimal), así la cotización
+ * que ve el cliente y el total guardado coinciden.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingService {
+
+    private final RoomCatalog roomCatalog;
+    private final ExtraCatalog extraCatalog;
+
+    public PriceQuoteDTO quote(Integer roomId, LocalTime startTime, LocalTime endTime,
+            Collection<Integer> extraIds) {
+        if (roomId == null || startTime == null || endTime == null) {
+            throw new IllegalArgumentException("La sala y el horario son obligatorios");
+        }
+        RoomDTO room = roomCatalog.findById(roomId)
+                .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada"));
+
+        // Cada extra cuenta una vez, igual que en la reserva (es un conjunto)
+        List<Integer> ids = extraIds == null ? List.of() : extraIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        BigDecimal extrasPrice = BigDecimal.ZERO;
+        for (Integer id : ids) {
+            ExtraDTO extra = extraCatalog.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Extra no encontrado"));
+            extrasPrice = extrasPrice.add(extra.getPrice());
+        }
+
+        int durationMinutes = Reservation.durationMinutes(startTime, endTime);
+        BigDecimal roomPrice = Reservation.roomPrice(room.getPricePerHour(), durationMinutes);
+
+        return new PriceQuoteDTO(room.getId(), room.getName(), room.getPricePerHour(), durationMinutes,
+                roomPrice, ids, extrasPrice, roomPrice.add(extrasPrice));
+    }
+}
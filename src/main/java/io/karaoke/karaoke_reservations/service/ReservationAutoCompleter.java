@@ -0,0 +1,161 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pasa a COMPLETED las reservas CONFIRMED que ya terminaron. Cada lote es
+ * un solo UPDATE ... RETURNING en su propia transacción; el fin se toma de
+ * time_range, que ya resuelve las reservas que cruzan medianoche.
+ *
+ * Con varias instancias solo una trabaja a la vez (pg_try_advisory_xact_lock:
+ * las demás se saltan la ejecución), y SKIP LOCKED evita esperar filas que un
+ * usuario o un administrador está modificando en ese momento.
+ */
+@Component
+@Slf4j
+public class ReservationAutoCompleter {
+
+    // Fuera de los espacios de claves de BookingLockManager (bits 62 y 63)
+    private static final long AUTO_COMPLETE_LOCK = 0x4155544F434F4DL;
+
+    private static final String COMPLETE_BATCH_SQL =
+            "UPDATE reservations SET status = 'COMPLETED', last_updated = now() " +
+            "WHERE id IN (" +
+            "SELECT id FROM reservations " +
+            "WHERE status = 'CONFIRMED' AND upper(time_range) <= ? " +
+            "ORDER BY upper(time_range) LIMIT ? " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, room_id, user_id, reservation_date, start_time, end_time, total_price";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserStatsService userStatsService;
+    private final ApplicationEventPublisher publisher;
+    private final int batchSize;
+    private final Counter completed;
+    private final Counter skipped;
+    private final Timer duration;
+
+    public ReservationAutoCompleter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            UserStatsService userStatsService, ApplicationEventPublisher publisher, MeterRegistry meterRegistry,
+            @Value("${karaoke.reservations.auto-complete-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userStatsService = userStatsService;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+
+        this.completed = Counter.builder("karaoke.reservations.auto_completed")
+                .description("Reservas pasadas a COMPLETED automáticamente")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("karaoke.reservations.auto_complete.skipped")
+                .description("Ejecuciones omitidas porque otra instancia tenía el bloqueo")
+                .register(meterRegistry);
+        this.duration = Timer.builder("karaoke.reservations.auto_complete")
+                .description("Duración de cada ejecución del autocompletado")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${karaoke.reservations.auto-complete-cron:0 */5 * * * *}")
+    public void completePastReservations() {
+        duration.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            int total = 0;
+            while (true) {
+                Integer count = transactionTemplate.execute(status -> completeBatch(now));
+                if (count == null || count < 0) {
+                    skipped.increment();
+                    break;
+                }
+                total += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("Autocompletadas {} reservas terminadas antes de {}", total, now);
+            }
+        });
+    }
+
+    // Devuelve las reservas completadas en el lote, o -1 si otra instancia está trabajando
+    private int completeBatch(LocalDateTime now) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                AUTO_COMPLETE_LOCK);
+        if (!Boolean.TRUE.equals(locked)) {
+            return -1;
+        }
+
+        List<Completed> rows = jdbcTemplate.query(COMPLETE_BATCH_SQL, (rs, i) -> new Completed(
+                new ReservationSlot(
+                        rs.getInt("id"),
+                        rs.getInt("room_id"),
+                        rs.getInt("user_id"),
+                        rs.getObject("reservation_date", LocalDate.class),
+                        rs.getObject("start_time", LocalTime.class),
+                        rs.getObject("end_time", LocalTime.class),
+                        ReservationStatus.COMPLETED),
+                rs.getBigDecimal("total_price")),
+                now, batchSize);
+
+        // Resumen por usuario: un UPDATE por usuario con la suma del lote
+        Map<Integer, UserTotals> byUser = new HashMap<>();
+        for (Completed row : rows) {
+            byUser.computeIfAbsent(row.slot().getUserId(), k -> new UserTotals()).add(row);
+        }
+        byUser.forEach((userId, totals) ->
+                userStatsService.recordCompleted(userId, totals.count, totals.spent, totals.lastVisit));
+
+        // Índice de disponibilidad, calendario y catálogos se actualizan después del commit,
+        // con un solo evento por lote
+        if (!rows.isEmpty()) {
+            publisher.publishEvent(new ReservationsChanged(ReservationChanged.Action.COMPLETED,
+                    rows.stream().map(Completed::slot).toList(), ReservationStatus.CONFIRMED));
+        }
+
+        completed.increment(rows.size());
+        return rows.size();
+    }
+
+    private record Completed(ReservationSlot slot, BigDecimal totalPrice) {
+    }
+
+    private static final class UserTotals {
+        private long count;
+        private BigDecimal spent = BigDecimal.ZERO;
+        private LocalDate lastVisit;
+
+        void add(Completed row) {
+            count++;
+            if (row.totalPrice() != null) {
+                spent = spent.add(row.totalPrice());
+            }
+            LocalDate date = row.slot().getReservationDate();
+            if (lastVisit == null || date.isAfter(lastVisit)) {
+                lastVisit = date;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Extra;
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.domain.User;
+import io.karaoke.karaoke_reservations.dto.ReservationImportResult;
+import io.karaoke.karaoke_reservations.repos.ExtraRepository;
+import io.karaoke.karaoke_reservations.repos.RoomRepository;
+import io.karaoke.karaoke_reservations.repos.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación de reservas desde un CSV del administrador:
+ *
+ * email,roomId,reservationDate,startTime,endTime,numberOfPeople,extraIds
+ *
+ * Fechas en formato 2025-01-31, horas en 20:00 y extras separados por ';'.
+ * Usuarios, salas y extras se buscan con una consulta cada uno; las reservas
+ * se guardan juntas (ver ReservationService.importReservations). Si alguna
+ * fila tiene errores no se guarda ninguna.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class ReservationImportService {
+
+    private static final String HEADER = "email,roomId,reservationDate,startTime,endTime,numberOfPeople,extraIds";
+    private static final int COLUMNS = 7;
+
+    private final ReservationService reservationService;
+    private final UserRepository userRepository;
+    private final RoomRepository roomRepository;
+    private final ExtraRepository extraRepository;
+
+    public ReservationImportResult importCsv(InputStream input) {
+        List<String[]> rows = readRows(input);
+        if (rows.size() > ReservationService.MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException(
+                    "Máximo " + ReservationService.MAX_IMPORT_ROWS + " reservas por importación");
+        }
+
+        // Referencias de todo el archivo, una consulta por tipo
+        Set<String> emails = new HashSet<>();
+        Set<Integer> roomIds = new HashSet<>();
+        Set<Integer> extraIds = new HashSet<>();
+        for (String[] row : rows) {
+            emails.add(UserCache.normalize(row[0]));
+            addIfInteger(roomIds, row[1]);
+            for (String extraId : splitExtras(row[6])) {
+                addIfInteger(extraIds, extraId);
+            }
+        }
+        Map<String, User> users = userRepository.findByEmailIn(emails).stream()
+                .collect(Collectors.toMap(User::getEmail, Function.identity()));
+        Map<Integer, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Integer, Extra> extras = extraRepository.findAllById(extraIds).stream()
+                .collect(Collectors.toMap(Extra::getId, Function.identity()));
+
+        List<Reservation> reservations = new ArrayList<>(rows.size());
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                reservations.add(toReservation(rows.get(i), users, rooms, extras));
+            } catch (IllegalArgumentException e) {
+                errors.add("Fila " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            return new ReservationImportResult(0, errors);
+        }
+
+        int imported = reservationService.importReservations(reservations).size();
+        log.info("Importadas {} reservas", imported);
+        return new ReservationImportResult(imported, List.of());
+    }
+
+    private List<String[]> readRows(InputStream input) {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null || !HEADER.equalsIgnoreCase(header.replace("\uFEFF", "").replace(" ", ""))) {
+                throw new IllegalArgumentException("El archivo debe empezar con la cabecera: " + HEADER);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] columns = line.split(",", -1);
+                if (columns.length == COLUMNS - 1) {
+                    // La columna de extras es opcional
+                    columns = Arrays.copyOf(columns, COLUMNS);
+                    columns[COLUMNS - 1] = "";
+                }
+                if (columns.length != COLUMNS) {
+                    throw new IllegalArgumentException(
+                            "Fila " + (rows.size() + 1) + ": se esperaban " + COLUMNS + " columnas");
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = columns[i].trim();
+                }
+                rows.add(columns);
+                if (rows.size() > ReservationService.MAX_IMPORT_ROWS) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el archivo");
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("El archivo no tiene reservas");
+        }
+        return rows;
+    }
+
+    private Reservation toReservation(String[] row, Map<String, User> users, Map<Integer, Room> rooms,
+            Map<Integer, Extra> extras) {
+        User user = users.get(UserCache.normalize(row[0]));
+        if (user == null) {
+            throw new IllegalArgumentException("Usuario no encontrado: " + row[0]);
+        }
+        Room room = rooms.get(parseInteger(row[1], "roomId"));
+        if (room == null) {
+            throw new IllegalArgumentException("Sala no encontrada: " + row[1]);
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setRoom(room);
+        try {
+            reservation.setReservationDate(LocalDate.parse(row[2]));
+            reservation.setStartTime(LocalTime.parse(row[3]));
+            reservation.setEndTime(LocalTime.parse(row[4]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha u hora inválida (use 2025-01-31 y 20:00)");
+        }
+        reservation.setNumberOfPeople(parseInteger(row[5], "numberOfPeople"));
+
+        Set<Extra> reservationExtras = new HashSet<>();
+        for (String extraId : splitExtras(row[6])) {
+            Extra extra = extras.get(parseInteger(extraId, "extraIds"));
+            if (extra == null) {
+                throw new IllegalArgumentException("Extra no encontrado: " + extraId);
+            }
+            reservationExtras.add(extra);
+        }
+        reservation.setExtras(reservationExtras);
+        return reservation;
+    }
+
+    private static List<String> splitExtras(String value) {
+        List<String> ids = new ArrayList<>();
+        for (String id : value.split(";")) {
+            if (!id.isBlank()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    private static void addIfInteger(Set<Integer> ids, String value) {
+        try {
+            ids.add(Integer.valueOf(value.trim()));
+        } catch (NumberFormatException e) {
+            // Se reporta al convertir la fila
+        }
+    }
+
+    private static Integer parseInteger(String value, String column) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido en " + column + ": " + value);
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package io.karaoke.karaoke_reservations.service;
 
+import io.karaoke.karaoke_reservations.domain.Extra;
 import io.karaoke.karaoke_reservations.domain.Reservation;
 import io.karaoke.karaoke_reservations.domain.ReservationStatus;
 import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.dto.BookingCheck;
+import io.karaoke.karaoke_reservations.dto.CalendarReservationDTO;
 import io.karaoke.karaoke_reservations.dto.ExtraDTO;
 import io.karaoke.karaoke_reservations.dto.ReservationHistoryDTO;
+import io.karaoke.karaoke_reservations.dto.ReservationHistoryPage;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
 import io.karaoke.karaoke_reservations.repos.ReservationRepository;
 import io.karaoke.karaoke_reservations.repos.RoomRepository;
 import io.karaoke.karaoke_reservations.repos.ExtraRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,22 +47,127 @@ public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final RoomRepository roomRepository;
     private final ExtraRepository extraRepository;
-
-    private static final int MIN_DURATION = 30;
-    private static final int MAX_DURATION = 120;
-    private static final int MAX_DAYS_ADVANCE = 60;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingLockManager bookingLockManager;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final UserStatsService userStatsService;
+
+    public static final int MIN_DURATION = 30;
+    public static final int MAX_DURATION = 120;
+    public static final int MAX_DAYS_ADVANCE = 60;
+    public static final int MAX_CALENDAR_DAYS = 62;
+    public static final int MAX_EXPORT_DAYS = 3660;
+    private static final int EXPORT_FLUSH_ROWS = 500;
+    private static final int EXTRAS_BATCH_SIZE = 1000;
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+    public static final int MAX_IMPORT_ROWS = 5000;
+    private static final String ROOM_OVERLAP_CONSTRAINT = "reservations_room_no_overlap";
 
     // Crear reserva
     public Reservation createReservation(Reservation reservation) {
+        // Serializa solo las reservas de la misma sala/día o del mismo usuario
+        bookingLockManager.lockForBooking(reservation.getRoom().getId(), reservation.getUser().getId(),
+                reservation.getReservationDate(), reservation.getStartTime(), reservation.getEndTime());
         validateReservation(reservation);
 
         Room room = reservation.getRoom();
         room.setIsAvailable(false);
         roomRepository.save(room);
-        Reservation savedReservation = reservationRepository.save(reservation);
+        Reservation savedReservation;
+        try {
+            // flush inmediato para que la restricción de exclusión responda aquí
+            savedReservation = reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new IllegalArgumentException("La sala no está disponible en el horario seleccionado", e);
+            }
+            throw e;
+        }
+        publishChange(ReservationChanged.Action.CREATED, savedReservation, null);
         return savedReservation;
     }
 
+    /**
+     * Carga masiva (importación del administrador). Las reglas y los
+     * conflictos de sala se revisan en memoria contra el índice y contra las
+     * demás filas del lote; los del usuario, además, en la BD con los
+     * bloqueos ya tomados (el índice de este nodo no ve reservas de otros).
+     * Luego todo se guarda con un solo flush, en lotes JDBC, y se publica un
+     * solo evento para el lote.
+     * Si alguna fila no es válida no se guarda ninguna: la excepción indica
+     * la fila (1 = primera reserva de la lista).
+     */
+    public List<Reservation> importReservations(List<Reservation> reservations) {
+        if (reservations.size() > MAX_IMPORT_ROWS) {
+            throw new IllegalArgumentException("Máximo " + MAX_IMPORT_ROWS + " reservas por importación");
+        }
+
+        Map<Integer, List<ReservationSlot>> batchByRoom = new HashMap<>();
+        Map<Integer, List<ReservationSlot>> batchByUser = new HashMap<>();
+        Map<Integer, Room> rooms = new LinkedHashMap<>();
+        bookingLockManager.lockForBookings(reservations);
+        int row = 0;
+        for (Reservation reservation : reservations) {
+            row++;
+            try {
+                validateImported(reservation, batchByRoom, batchByUser);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Fila " + row + ": " + e.getMessage());
+            }
+            rooms.putIfAbsent(reservation.getRoom().getId(), reservation.getRoom());
+        }
+
+        rooms.values().forEach(room -> room.setIsAvailable(false));
+        roomRepository.saveAll(rooms.values());
+        List<Reservation> saved;
+        try {
+            saved = reservationRepository.saveAll(reservations);
+            reservationRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new IllegalArgumentException(
+                        "Una de las salas ya no está disponible en el horario importado", e);
+            }
+            throw e;
+        }
+
+        // Resumen por usuario recalculado una vez por usuario, no una vez por fila
+        userStatsService.rebuildForUsers(batchByUser.keySet());
+        publisher.publishEvent(new ReservationsChanged(ReservationChanged.Action.CREATED,
+                saved.stream().map(ReservationSlot::of).toList(), null));
+        return saved;
+    }
+
+    private void validateImported(Reservation reservation, Map<Integer, List<ReservationSlot>> batchByRoom,
+            Map<Integer, List<ReservationSlot>> batchByUser) {
+        validateSchedule(reservation);
+
+        Room room = reservation.getRoom();
+        if (!Boolean.TRUE.equals(room.getIsAvailable())) {
+            throw new IllegalArgumentException(rejectionMessage(BookingCheck.Reason.ROOM_NOT_AVAILABLE, reservation));
+        }
+        if (reservation.getNumberOfPeople() > room.getMaxCapacity()) {
+            throw new IllegalArgumentException(rejectionMessage(BookingCheck.Reason.OVER_CAPACITY, reservation));
+        }
+
+        ReservationSlot slot = ReservationSlot.of(reservation);
+        List<ReservationSlot> sameRoom = batchByRoom.computeIfAbsent(slot.getRoomId(), k -> new ArrayList<>());
+        List<ReservationSlot> sameUser = batchByUser.computeIfAbsent(slot.getUserId(), k -> new ArrayList<>());
+        if (sameRoom.stream().anyMatch(other -> other.overlaps(slot.getStart(), slot.getEnd()))
+                || hasRoomConflict(slot.getRoomId(), slot.getReservationDate(), slot.getStartTime(),
+                        slot.getEndTime(), null)) {
+            throw new IllegalArgumentException(rejectionMessage(BookingCheck.Reason.ROOM_CONFLICT, reservation));
+        }
+        if (sameUser.stream().anyMatch(other -> other.overlaps(slot.getStart(), slot.getEnd()))
+                || existsUserConflictInDatabase(slot.getUserId(), slot.getReservationDate(),
+                        slot.getStartTime(), slot.getEndTime(), null)) {
+            throw new IllegalArgumentException("El usuario ya tiene una reserva en ese horario");
+        }
+        sameRoom.add(slot);
+        sameUser.add(slot);
+    }
+
     // Obtener reserva por ID
     public Optional<Reservation> findById(Integer id) {
         return reservationRepository.findById(id);
@@ -82,12 +206,30 @@ public class ReservationService {
             return false;
         }
 
-        List<Reservation> conflicts = findConflictingReservationsComplete(roomId, date, startTime, endTime, null);
-        return conflicts.isEmpty();
+        return !hasRoomConflict(roomId, date, startTime, endTime, null);
     }
 
     // Validaciones de reserva
     private void validateReservation(Reservation reservation) {
+        validateSchedule(reservation);
+
+        // Validar sala y conflictos en una sola consulta, EXCLUYENDO la reserva
+        // actual si ya tiene ID
+        BookingCheck check = reservationRepository.checkBooking(
+                reservation.getRoom().getId(),
+                reservation.getUser().getId(),
+                rangeStart(reservation.getReservationDate(), reservation.getStartTime()),
+                rangeEnd(reservation.getReservationDate(), reservation.getStartTime(), reservation.getEndTime()),
+                reservation.getId()); // Será null para nuevas reservas
+
+        check.rejection(reservation.getNumberOfPeople())
+                .ifPresent(reason -> {
+                    throw new IllegalArgumentException(rejectionMessage(reason, reservation));
+                });
+    }
+
+    // Reglas que no dependen de la BD: fecha, duración y número de personas
+    private void validateSchedule(Reservation reservation) {
         LocalDate today = LocalDate.now();
         LocalDate maxDate = today.plusDays(MAX_DAYS_ADVANCE);
 
@@ -122,103 +264,77 @@ public class ReservationService {
         if (reservation.getNumberOfPeople() < 2 || reservation.getNumberOfPeople() > 15) {
             throw new IllegalArgumentException("Número de personas debe ser entre 2 y 15");
         }
+    }
 
-        // Validar sala
-        Room room = roomRepository.findById(reservation.getRoom().getId())
-                .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada"));
-
-        if (!room.getIsAvailable()) {
-            throw new IllegalArgumentException("La sala no está disponible");
-        }
+    private String rejectionMessage(BookingCheck.Reason reason, Reservation reservation) {
+        return switch (reason) {
+            case ROOM_NOT_FOUND -> "Sala no encontrada";
+            case ROOM_NOT_AVAILABLE -> "La sala no está disponible";
+            case OVER_CAPACITY -> "La sala no tiene capacidad para " + reservation.getNumberOfPeople() + " personas";
+            case ROOM_CONFLICT -> "La sala no está disponible en el horario seleccionado";
+            case USER_CONFLICT -> "Ya tienes una reserva CONFIRMED en ese horario";
+        };
+    }
 
-        if (reservation.getNumberOfPeople() > room.getMaxCapacity()) {
-            throw new IllegalArgumentException(
-                    "La sala no tiene capacidad para " + reservation.getNumberOfPeople() + " personas");
+    // Conflictos de sala: desde el índice si cubre la fecha, si no desde la BD
+    private boolean hasRoomConflict(Integer roomId, LocalDate date, LocalTime startTime, LocalTime endTime,
+            Integer excludeReservationId) {
+        if (availabilityIndex.covers(date)) {
+            return availabilityIndex.hasRoomConflict(roomId, date, startTime, endTime, excludeReservationId);
         }
+        return existsRoomConflictInDatabase(roomId, date, startTime, endTime, excludeReservationId);
+    }
 
-        // Verificar conflictos - EXCLUYENDO la reserva actual si ya tiene ID
-        Integer excludeReservationId = reservation.getId(); // Será null para nuevas reservas
-
-        List<Reservation> roomConflicts = findConflictingReservationsComplete(
-                room.getId(),
-                reservation.getReservationDate(),
-                reservation.getStartTime(),
-                reservation.getEndTime(),
-                excludeReservationId);
-
-        if (!roomConflicts.isEmpty()) {
-            throw new IllegalArgumentException("La sala no está disponible en el horario seleccionado");
+    // Conflictos de usuario: desde el índice si cubre la fecha, si no desde la BD
+    private boolean hasUserConflict(Integer userId, LocalDate date, LocalTime startTime, LocalTime endTime,
+            Integer excludeReservationId) {
+        if (availabilityIndex.covers(date)) {
+            return availabilityIndex.hasUserConflict(userId, date, startTime, endTime, excludeReservationId);
         }
+        return existsUserConflictInDatabase(userId, date, startTime, endTime, excludeReservationId);
+    }
 
-        // Validar conflictos por usuario
-        if (hasUserConflictingReservationsComplete(reservation.getUser().getId(),
-                reservation.getReservationDate(),
-                reservation.getStartTime(),
-                reservation.getEndTime(),
-                excludeReservationId)) {
-            throw new IllegalArgumentException("Ya tienes una reserva CONFIRMED en ese horario");
-        }
+    private void publishChange(ReservationChanged.Action action, Reservation reservation,
+            ReservationStatus previousStatus) {
+        // El resumen del usuario se actualiza en esta misma transacción
+        userStatsService.record(reservation, previousStatus,
+                action == ReservationChanged.Action.DELETED ? null : reservation.getStatus());
+        publisher.publishEvent(new ReservationChanged(action, ReservationSlot.of(reservation), previousStatus));
     }
 
-    // Método para encontrar conflictos de sala (incluye medianoche)
-    private List<Reservation> findConflictingReservationsComplete(Integer roomId, LocalDate date,
+    // Conflictos de sala en la BD: un solo && sobre el rango (incluye medianoche)
+    private boolean existsRoomConflictInDatabase(Integer roomId, LocalDate date,
             LocalTime startTime, LocalTime endTime, Integer excludeReservationId) {
-        boolean crossesMidnight = endTime.isBefore(startTime);
-
-        List<Reservation> conflicts;
-
-        if (crossesMidnight) {
-            // Caso 1: Reserva que cruza medianoche
-            List<Reservation> conflicts1 = reservationRepository.findConflictingReservations(
-                    roomId, date, startTime, LocalTime.MAX, excludeReservationId);
-
-            List<Reservation> conflicts2 = reservationRepository.findConflictingReservations(
-                    roomId, date.plusDays(1), LocalTime.MIN, endTime, excludeReservationId);
-
-            conflicts = new ArrayList<>();
-            conflicts.addAll(conflicts1);
-            conflicts.addAll(conflicts2);
-        } else {
-            // Caso 2: Reserva normal (no cruza medianoche)
-            conflicts = reservationRepository.findConflictingReservations(
-                    roomId, date, startTime, endTime, excludeReservationId);
-        }
-
-        return conflicts;
+        return reservationRepository.existsOverlappingForRoom(roomId,
+                rangeStart(date, startTime), rangeEnd(date, startTime, endTime), excludeReservationId);
     }
 
-    // Método para validar conflictos por usuario (incluye medianoche)
-    private boolean hasUserConflictingReservationsComplete(Integer userId, LocalDate date,
+    // Conflictos por usuario en la BD (incluye medianoche)
+    private boolean existsUserConflictInDatabase(Integer userId, LocalDate date,
             LocalTime startTime, LocalTime endTime, Integer excludeReservationId) {
+        return reservationRepository.existsOverlappingForUser(userId,
+                rangeStart(date, startTime), rangeEnd(date, startTime, endTime), excludeReservationId);
+    }
 
-        boolean crossesMidnight = endTime.isBefore(startTime);
-
-        List<Reservation> conflicts;
-
-        if (crossesMidnight) {
-            // Caso 1: Reserva que cruza medianoche - verificar en dos partes
-            List<Reservation> conflicts1 = reservationRepository.findConflictingReservationsByUserComplete(
-                    userId, date, startTime, LocalTime.MAX, excludeReservationId);
-
-            List<Reservation> conflicts2 = reservationRepository.findConflictingReservationsByUserComplete(
-                    userId, date.plusDays(1), LocalTime.MIN, endTime, excludeReservationId);
+    static LocalDateTime rangeStart(LocalDate date, LocalTime startTime) {
+        return LocalDateTime.of(date, startTime);
+    }
 
-            conflicts = new ArrayList<>();
-            conflicts.addAll(conflicts1);
-            conflicts.addAll(conflicts2);
-        } else {
-            // Caso 2: Reserva normal (no cruza medianoche)
-            conflicts = reservationRepository.findConflictingReservationsByUserComplete(
-                    userId, date, startTime, endTime, excludeReservationId);
-        }
+    // Si la hora final es menor que la inicial, la reserva termina al día siguiente
+    static LocalDateTime rangeEnd(LocalDate date, LocalTime startTime, LocalTime endTime) {
+        return LocalDateTime.of(endTime.isBefore(startTime) ? date.plusDays(1) : date, endTime);
+    }
 
-        return !conflicts.isEmpty();
+    // Violación de reservations_room_no_overlap al hacer flush
+    private boolean isOverlapViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(ROOM_OVERLAP_CONSTRAINT);
     }
 
     // Método simplificado para uso externo (sin excludeReservationId)
     public boolean hasUserConflictingReservations(Integer userId, LocalDate date,
             LocalTime startTime, LocalTime endTime) {
-        return hasUserConflictingReservationsComplete(userId, date, startTime, endTime, null);
+        return hasUserConflict(userId, date, startTime, endTime, null);
     }
 
     public void deleteReservation(Integer reservationId) {
@@ -231,6 +347,7 @@ public class ReservationService {
         roomRepository.save(room);
 
         reservationRepository.deleteById(reservationId);
+        publishChange(ReservationChanged.Action.DELETED, reservation, reservation.getStatus());
     }
 
     // Cancelar reserva
@@ -246,6 +363,7 @@ public class ReservationService {
         }
 
         // Cambiar estado a CANCELLED en lugar de eliminar
+        ReservationStatus previousStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.CANCELLED);
 
         // Liberar la sala
@@ -254,6 +372,7 @@ public class ReservationService {
         roomRepository.save(room);
 
         reservationRepository.save(reservation); // Guardar el cambio de estado
+        publishChange(ReservationChanged.Action.CANCELLED, reservation, previousStatus);
     }
 
     // Nuevo método para marcar reserva como completada
@@ -268,8 +387,10 @@ public class ReservationService {
             throw new IllegalArgumentException("No se puede completar una reserva futura");
         }
 
+        ReservationStatus previousStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.COMPLETED);
         reservationRepository.save(reservation);
+        publishChange(ReservationChanged.Action.COMPLETED, reservation, previousStatus);
     }
 
     // Método para obtener reservas por estado
@@ -278,7 +399,7 @@ public class ReservationService {
     }
 
     public long getReservationCountByUser(Integer userId) {
-        return reservationRepository.findByUserId(userId).size();
+        return userStatsService.getStats(userId).getTotalCount();
     }
 
     // Obtener todas las reservas (para APIs como calendario)
@@ -286,39 +407,59 @@ public class ReservationService {
         return reservationRepository.findAll();
     }
 
+    /**
+     * Ventana de fechas del calendario. Sin parámetros se usa el mes actual;
+     * si solo llega una fecha, la ventana es de un mes desde o hasta ella.
+     */
+    public LocalDate[] calendarWindow(LocalDate from, LocalDate to) {
+        return calendarWindow(from, to, MAX_CALENDAR_DAYS);
+    }
+
+    public LocalDate[] calendarWindow(LocalDate from, LocalDate to, int maxDays) {
+        if (from == null && to == null) {
+            from = LocalDate.now().withDayOfMonth(1);
+        }
+        if (from == null) {
+            from = to.minusMonths(1).plusDays(1);
+        }
+        if (to == null) {
+            to = from.plusMonths(1).minusDays(1);
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("Máximo " + maxDays + " días por consulta");
+        }
+        return new LocalDate[] { from, to };
+    }
+
     /**
      * Construye un mapa agrupado por fecha con datos simples de reservas
-     * (DTO-like).
+     * (DTO-like) entre from y to (inclusive).
      * Si userId es null devuelve todas; si no, devuelve sólo las reservas de ese
-     * usuario.
-     * Este metodo se ejecuta dentro de la transaccion del servicio para evitar
-     * problemas de LazyInitialization.
+     * usuario. La sala viene unida en la misma consulta.
      */
-    public java.util.Map<String, java.util.List<java.util.Map<String, Object>>> getReservationsGroupedByDateForUser(Integer userId) {
-        java.util.List<Reservation> list;
+    public java.util.Map<String, java.util.List<java.util.Map<String, Object>>> getReservationsGroupedByDateForUser(
+            Integer userId, LocalDate from, LocalDate to) {
+        List<CalendarReservationDTO> list;
         if (userId != null) {
-            list = reservationRepository.findByUserId(userId);
+            list = reservationRepository.findCalendarReservationsByUser(userId, from, to);
         } else {
-            list = reservationRepository.findAll();
+            list = reservationRepository.findCalendarReservations(from, to);
         }
 
         java.util.Map<String, java.util.List<java.util.Map<String, Object>>> byDate = new java.util.HashMap<>();
 
-        for (Reservation r : list) {
+        for (CalendarReservationDTO r : list) {
             String key = r.getReservationDate().toString();
             byDate.computeIfAbsent(key, k -> new java.util.ArrayList<>());
 
-            java.util.Map<String, Object> item = new java.util.HashMap<>();
-            item.put("id", r.getId());
-            item.put("reservationDate", r.getReservationDate().toString());
-            item.put("startTime", r.getStartTime() != null ? r.getStartTime().toString() : null);
-            item.put("endTime", r.getEndTime() != null ? r.getEndTime().toString() : null);
-            item.put("numberOfPeople", r.getNumberOfPeople());
-            item.put("status", r.getStatus() != null ? r.getStatus().name().toLowerCase() : "confirmed");
-            if (r.getRoom() != null) {
+            java.util.Map<String, Object> item = calendarItem(r);
+            if (r.getRoomId() != null) {
                 java.util.Map<String, Object> room = new java.util.HashMap<>();
-                room.put("id", r.getRoom().getId());
-                room.put("name", r.getRoom().getName());
+                room.put("id", r.getRoomId());
+                room.put("name", r.getRoomName());
                 item.put("room", room);
             }
 
@@ -328,20 +469,23 @@ public class ReservationService {
         return byDate;
     }
 
+    private java.util.Map<String, Object> calendarItem(CalendarReservationDTO r) {
+        java.util.Map<String, Object> item = new java.util.HashMap<>();
+        item.put("id", r.getId());
+        item.put("reservationDate", r.getReservationDate().toString());
+        item.put("startTime", r.getStartTime() != null ? r.getStartTime().toString() : null);
+        item.put("endTime", r.getEndTime() != null ? r.getEndTime().toString() : null);
+        item.put("numberOfPeople", r.getNumberOfPeople());
+        item.put("status", r.getStatus() != null ? r.getStatus().name().toLowerCase() : "confirmed");
+        return item;
+    }
+
     // Método principal con DTOs
     public List<ReservationHistoryDTO> findReservationHistoryByUser(Integer userId) {
         try {
 
             List<ReservationHistoryDTO> reservations = reservationRepository.findReservationHistoryByUserId(userId);
-            // Cargar los extras para cada reserva
-            for (ReservationHistoryDTO dto : reservations) {
-                List<ExtraDTO> extras = extraRepository.findExtrasByReservationId(dto.getId())
-                        .stream()
-                        .map(extra -> new ExtraDTO(extra)) 
-                        .collect(Collectors.toList());
-                dto.setExtras(extras);
-            }
-
+            attachExtras(reservations);
             return reservations;
         } catch (Exception e) {
             e.printStackTrace();
@@ -349,6 +493,51 @@ public class ReservationService {
         }
     }
 
+    /**
+     * Página del historial con filtro, orden y paginación resueltos en la base
+     * de datos. Se pide una fila de más para saber si hay página siguiente.
+     */
+    @Transactional(readOnly = true)
+    public ReservationHistoryPage findReservationHistoryPage(Integer userId, String filter, String sort,
+            String after, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        List<ReservationHistoryDTO> rows = reservationRepository.findHistoryPage(userId, filter, sort, after,
+                pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = reservationRepository.cursorOf(rows.get(pageSize - 1), sort);
+        }
+        attachExtras(rows);
+        return new ReservationHistoryPage(rows, nextCursor);
+    }
+
+    // Total de reservas del usuario con un filtro de fecha (pasadas/próximas)
+    @Transactional(readOnly = true)
+    public long countReservationHistory(Integer userId, String filter) {
+        return reservationRepository.countHistory(userId, filter);
+    }
+
+    // Carga los extras de todas las reservas con consultas IN (por bloques) y
+    // los asigna en memoria, en lugar de una consulta por reserva
+    private void attachExtras(List<ReservationHistoryDTO> reservations) {
+        java.util.Map<Integer, List<ExtraDTO>> extrasByReservation = new java.util.HashMap<>();
+        List<Integer> ids = reservations.stream().map(ReservationHistoryDTO::getId).collect(Collectors.toList());
+
+        for (int i = 0; i < ids.size(); i += EXTRAS_BATCH_SIZE) {
+            List<Integer> batch = ids.subList(i, Math.min(i + EXTRAS_BATCH_SIZE, ids.size()));
+            for (Object[] row : extraRepository.findExtrasByReservationIds(batch)) {
+                extrasByReservation.computeIfAbsent((Integer) row[0], k -> new ArrayList<>())
+                        .add(new ExtraDTO((Extra) row[1]));
+            }
+        }
+
+        for (ReservationHistoryDTO dto : reservations) {
+            dto.setExtras(extrasByReservation.getOrDefault(dto.getId(), new ArrayList<>()));
+        }
+    }
+
     /**
      * Obtiene todas las reservaciones (para admin)
      */
@@ -357,48 +546,118 @@ public class ReservationService {
     }
 
     /**
-     * Obtiene reservaciones agrupadas por fecha para admin (todas las reservas)
+     * Obtiene reservaciones agrupadas por fecha para admin (todas las reservas
+     * entre from y to, inclusive). Sala y cliente vienen en la misma consulta.
      */
-    public java.util.Map<String, java.util.List<java.util.Map<String, Object>>> getReservationsGroupedByDateForAdmin() {
-        java.util.List<Reservation> allReservations = reservationRepository.findAll();
+    public java.util.Map<String, java.util.List<java.util.Map<String, Object>>> getReservationsGroupedByDateForAdmin(
+            LocalDate from, LocalDate to) {
+        List<CalendarReservationDTO> allReservations = reservationRepository.findCalendarReservations(from, to);
         
         java.util.Map<String, java.util.List<java.util.Map<String, Object>>> byDate = new java.util.HashMap<>();
 
-        for (Reservation r : allReservations) {
+        for (CalendarReservationDTO r : allReservations) {
             String key = r.getReservationDate().toString();
             byDate.computeIfAbsent(key, k -> new java.util.ArrayList<>());
+            byDate.get(key).add(adminCalendarItem(r));
+        }
 
-            java.util.Map<String, Object> item = new java.util.HashMap<>();
-            item.put("id", r.getId());
-            item.put("reservationDate", r.getReservationDate().toString());
-            item.put("startTime", r.getStartTime() != null ? r.getStartTime().toString() : null);
-            item.put("endTime", r.getEndTime() != null ? r.getEndTime().toString() : null);
-            item.put("numberOfPeople", r.getNumberOfPeople());
-            item.put("status", r.getStatus() != null ? r.getStatus().name().toLowerCase() : "confirmed");
-            
-            // Información de la sala
-            if (r.getRoom() != null) {
-                java.util.Map<String, Object> room = new java.util.HashMap<>();
-                room.put("id", r.getRoom().getId());
-                room.put("name", r.getRoom().getName());
-                item.put("room", room);
-                item.put("roomName", r.getRoom().getName());
+        return byDate;
+    }
+
+    /**
+     * Elemento del calendario de admin: datos de la reserva con sala y cliente
+     */
+    public java.util.Map<String, Object> adminCalendarItem(CalendarReservationDTO r) {
+        java.util.Map<String, Object> item = calendarItem(r);
+
+        // Información de la sala
+        if (r.getRoomId() != null) {
+            java.util.Map<String, Object> room = new java.util.HashMap<>();
+            room.put("id", r.getRoomId());
+            room.put("name", r.getRoomName());
+            item.put("room", room);
+            item.put("roomName", r.getRoomName());
+        }
+
+        // Información del cliente
+        if (r.getCustomerId() != null) {
+            java.util.Map<String, Object> customer = new java.util.HashMap<>();
+            customer.put("id", r.getCustomerId());
+            customer.put("name", r.getCustomerName());
+            customer.put("email", r.getCustomerEmail());
+            customer.put("phone", r.getCustomerPhone());
+            item.put("customer", customer);
+        }
+        return item;
+    }
+
+    /**
+     * Escribe el calendario de admin entre from y to directamente en out, con
+     * el mismo formato que getReservationsGroupedByDateForAdmin. Las filas se
+     * leen con cursor (ordenadas por fecha) y se escriben a medida que llegan,
+     * así que la memoria no depende del tamaño del rango.
+     */
+    @Transactional(readOnly = true)
+    public void writeCalendarForAdmin(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        try (Stream<CalendarReservationDTO> rows = reservationRepository.streamCalendarReservations(from, to);
+                JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // La respuesta la cierra el contenedor, no el generador
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeObjectFieldStart("reservationsByDate");
+
+            String currentDate = null;
+            int written = 0;
+            for (Iterator<CalendarReservationDTO> it = rows.iterator(); it.hasNext();) {
+                CalendarReservationDTO r = it.next();
+                String key = r.getReservationDate().toString();
+                if (!key.equals(currentDate)) {
+                    if (currentDate != null) {
+                        json.writeEndArray();
+                    }
+                    json.writeArrayFieldStart(key);
+                    currentDate = key;
+                }
+                writeCalendarRow(json, r);
+                if (++written % EXPORT_FLUSH_ROWS == 0) {
+                    json.flush();
+                }
             }
-            
-            // Información del cliente
-            if (r.getUser() != null) {
-                java.util.Map<String, Object> customer = new java.util.HashMap<>();
-                customer.put("id", r.getUser().getId());
-                customer.put("name", r.getUser().getFullName());
-                customer.put("email", r.getUser().getEmail());
-                customer.put("phone", r.getUser().getPhoneNumber());
-                item.put("customer", customer);
+            if (currentDate != null) {
+                json.writeEndArray();
             }
 
-            byDate.get(key).add(item);
+            json.writeEndObject();
+            json.writeEndObject();
         }
+    }
 
-        return byDate;
+    private void writeCalendarRow(JsonGenerator json, CalendarReservationDTO r) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", r.getId());
+        json.writeStringField("reservationDate", r.getReservationDate().toString());
+        json.writeStringField("startTime", r.getStartTime() != null ? r.getStartTime().toString() : null);
+        json.writeStringField("endTime", r.getEndTime() != null ? r.getEndTime().toString() : null);
+        json.writeObjectField("numberOfPeople", r.getNumberOfPeople());
+        json.writeStringField("status", r.getStatus() != null ? r.getStatus().name().toLowerCase() : "confirmed");
+        if (r.getRoomId() != null) {
+            json.writeObjectFieldStart("room");
+            json.writeNumberField("id", r.getRoomId());
+            json.writeStringField("name", r.getRoomName());
+            json.writeEndObject();
+            json.writeStringField("roomName", r.getRoomName());
+        }
+        if (r.getCustomerId() != null) {
+            json.writeObjectFieldStart("customer");
+            json.writeNumberField("id", r.getCustomerId());
+            json.writeStringField("name", r.getCustomerName());
+            json.writeStringField("email", r.getCustomerEmail());
+            json.writeStringField("phone", r.getCustomerPhone());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
     }
 
     /**
@@ -409,8 +668,10 @@ public class ReservationService {
                 .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
 
         // Los admin pueden marcar cualquier reserva como completada, sin importar la fecha
+        ReservationStatus previousStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.COMPLETED);
         reservationRepository.save(reservation);
+        publishChange(ReservationChanged.Action.COMPLETED, reservation, previousStatus);
     }
 
     /**
@@ -423,6 +684,7 @@ public class ReservationService {
         if (reservation.getStatus() == ReservationStatus.COMPLETED) {
             reservation.setStatus(ReservationStatus.CONFIRMED);
             reservationRepository.save(reservation);
+            publishChange(ReservationChanged.Action.REVERTED, reservation, ReservationStatus.COMPLETED);
         } else {
             throw new IllegalArgumentException("Solo se pueden revertir reservaciones completadas");
         }
@@ -439,18 +701,24 @@ public class ReservationService {
             throw new IllegalArgumentException("Solo se pueden revertir reservaciones canceladas");
         }
 
-        // Verificar conflictos antes de reactivar. No excluimos ninguna reserva.
-        List<Reservation> conflicts = findConflictingReservationsComplete(
-                reservation.getRoom().getId(),
-                reservation.getReservationDate(),
-                reservation.getStartTime(),
-                reservation.getEndTime(),
-                null 
-        );
+        bookingLockManager.lockForBooking(reservation.getRoom().getId(), reservation.getUser().getId(),
+                reservation.getReservationDate(), reservation.getStartTime(), reservation.getEndTime());
 
-        if (!conflicts.isEmpty()) {
+        // Conflictos de sala y de usuario en una sola consulta, con los bloqueos tomados.
+        // La disponibilidad y la capacidad de la sala ya se validaron al crear la reserva.
+        BookingCheck check = reservationRepository.checkBooking(
+                reservation.getRoom().getId(),
+                reservation.getUser().getId(),
+                rangeStart(reservation.getReservationDate(), reservation.getStartTime()),
+                rangeEnd(reservation.getReservationDate(), reservation.getStartTime(), reservation.getEndTime()),
+                reservation.getId());
+        if (Boolean.TRUE.equals(check.getRoomConflict())) {
             throw new IllegalArgumentException("No se puede revertir la cancelación, el horario ahora está ocupado.");
         }
+        if (Boolean.TRUE.equals(check.getUserConflict())) {
+            throw new IllegalArgumentException(
+                    "No se puede revertir la cancelación, el cliente ya tiene otra reserva en ese horario.");
+        }
 
         reservation.setStatus(ReservationStatus.CONFIRMED);
         
@@ -458,6 +726,15 @@ public class ReservationService {
         room.setIsAvailable(false);
         roomRepository.save(room);
 
-        reservationRepository.save(reservation);
+        try {
+            reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new IllegalArgumentException(
+                        "No se puede revertir la cancelación, el horario ahora está ocupado.", e);
+            }
+            throw e;
+        }
+        publishChange(ReservationChanged.Action.REVERTED, reservation, ReservationStatus.CANCELLED);
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.dto.RoomDTO;
+import io.karaoke.karaoke_reservations.events.ReservationChanged;
+import io.karaoke.karaoke_reservations.events.ReservationsChanged;
+import io.karaoke.karaoke_reservations.events.RoomChanged;
+import io.karaoke.karaoke_reservations.repos.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo de salas en memoria. Son pocas salas, así que se guarda una foto
+ * inmutable con los DTO ya armados y se reemplaza completa cuando algo
+ * cambia: después del commit de un cambio de sala o de una reserva (que
+ * ocupa o libera la sala) se descarta y la siguiente lectura la vuelve a
+ * cargar con una sola consulta.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomCatalog {
+
+    private final RoomRepository roomRepository;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<RoomDTO> findAll() {
+        return snapshot().all();
+    }
+
+    public Optional<RoomDTO> findById(Integer id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    public List<RoomDTO> findAvailable() {
+        return snapshot().available();
+    }
+
+    // Salas disponibles con capacidad máxima >= numberOfPeople
+    public List<RoomDTO> findAvailableByCapacity(int numberOfPeople) {
+        Map.Entry<Integer, List<RoomDTO>> entry = snapshot().availableFromCapacity().ceilingEntry(numberOfPeople);
+        return entry != null ? entry.getValue() : List.of();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomChanged(RoomChanged event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationChanged(ReservationChanged event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationsChanged(ReservationsChanged event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        current.set(null);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot != null && snapshot.generation() == generation.get()) {
+            return snapshot;
+        }
+        // Si se invalida mientras se carga, la foto queda con una generación vieja y se recarga luego
+        long loadedGeneration = generation.get();
+        Snapshot loaded = Snapshot.of(loadedGeneration, roomRepository.findAll());
+        current.set(loaded);
+        return loaded;
+    }
+
+    private static RoomDTO toDTO(Room room) {
+        String description = room.getDescription() != null ? room.getDescription() : "";
+
+        return new RoomDTO(
+            room.getId(),
+            room.getName(),
+            room.getMinCapacity(),
+            room.getMaxCapacity(),
+            room.getIsAvailable(),
+            BigDecimal.valueOf(room.getPricePerHour()),
+            description
+        );
+    }
+
+    /**
+     * Foto inmutable del catálogo. availableFromCapacity tiene una entrada por
+     * cada capacidad máxima existente k con las salas disponibles de capacidad
+     * >= k, así que filtrar por personas es un ceilingEntry.
+     */
+    private record Snapshot(long generation, List<RoomDTO> all, Map<Integer, RoomDTO> byId,
+            List<RoomDTO> available, NavigableMap<Integer, List<RoomDTO>> availableFromCapacity) {
+
+        static Snapshot of(long generation, List<Room> rooms) {
+            List<RoomDTO> all = rooms.stream()
+                    .sorted(Comparator.comparing(Room::getId))
+                    .map(RoomCatalog::toDTO)
+                    .collect(Collectors.toUnmodifiableList());
+            Map<Integer, RoomDTO> byId = all.stream()
+                    .collect(Collectors.toUnmodifiableMap(RoomDTO::getId, Function.identity()));
+            List<RoomDTO> available = all.stream()
+                    .filter(RoomDTO::getIsAvailable)
+                    .collect(Collectors.toUnmodifiableList());
+
+            NavigableMap<Integer, List<RoomDTO>> fromCapacity = new TreeMap<>();
+            for (Integer capacity : available.stream().map(RoomDTO::getMaxCapacity).distinct().toList()) {
+                fromCapacity.put(capacity, available.stream()
+                        .filter(room -> room.getMaxCapacity() >= capacity)
+                        .collect(Collectors.toUnmodifiableList()));
+            }
+
+            return new Snapshot(generation, all, byId, available,
+                    Collections.unmodifiableNavigableMap(fromCapacity));
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package io.karaoke.karaoke_reservations.service;
 
-import io.karaoke.karaoke_reservations.domain.Reservation;
 import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.dto.AvailabilityCheckDTO;
+import io.karaoke.karaoke_reservations.dto.ReservationSlot;
 import io.karaoke.karaoke_reservations.dto.RoomDTO;
+import io.karaoke.karaoke_reservations.dto.SlotSuggestionDTO;
+import io.karaoke.karaoke_reservations.events.RoomChanged;
 import io.karaoke.karaoke_reservations.repos.ReservationRepository;
 import io.karaoke.karaoke_reservations.repos.RoomRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -23,50 +31,252 @@ public class RoomService {
 
     private final RoomRepository roomRepository;
     private final ReservationRepository reservationRepository; 
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomCatalog roomCatalog;
+    private final ApplicationEventPublisher publisher;
+
+    private static final int MAX_GRID_DAYS = 14;
+    private static final int MAX_BATCH_CHECKS = 500;
+    private static final int MAX_SUGGESTIONS = 20;
+    // Radios de búsqueda alrededor de la hora preferida, de menor a mayor
+    private static final long[] SEARCH_RADIUS_MINUTES = {
+            ReservationSlot.MINUTES_PER_DAY,
+            7L * ReservationSlot.MINUTES_PER_DAY,
+            (ReservationService.MAX_DAYS_ADVANCE + 1L) * ReservationSlot.MINUTES_PER_DAY };
 
     public List<RoomDTO> findAllAvailableRoomsAsDTO() {
-        List<Room> rooms = roomRepository.findByIsAvailableTrue();
-        return rooms.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return roomCatalog.findAvailable();
     }
 
     public List<RoomDTO> findAvailableRoomsByCapacityAsDTO(Integer numberOfPeople) {
         if (numberOfPeople == null || numberOfPeople < 2 || numberOfPeople > 15) {
             throw new IllegalArgumentException("El número de personas debe estar entre 2 y 15");
         }
-        List<Room> rooms = roomRepository.findByIsAvailableTrueAndMaxCapacityGreaterThanEqual(numberOfPeople);
-        return rooms.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-    }
-
-    private RoomDTO convertToDTO(Room room) {
-        String description = room.getDescription() != null ? room.getDescription() : "";
-        
-        return new RoomDTO(
-            room.getId(),
-            room.getName(),
-            room.getMinCapacity(),
-            room.getMaxCapacity(),
-            room.getIsAvailable(),
-            BigDecimal.valueOf(room.getPricePerHour()),
-            description
-        );
+        return roomCatalog.findAvailableByCapacity(numberOfPeople);
     }
 
     public boolean isRoomAvailable(Integer roomId, LocalDate date, LocalTime startTime, LocalTime endTime) {
-        Optional<Room> roomOpt = roomRepository.findById(roomId);
+        Optional<RoomDTO> roomOpt = roomCatalog.findById(roomId);
         if (roomOpt.isEmpty() || !roomOpt.get().getIsAvailable()) {
             return false;
         }
+
+        // Responder desde el índice en memoria cuando cubre la fecha
+        if (availabilityIndex.covers(date)) {
+            return !availabilityIndex.hasRoomConflict(roomId, date, startTime, endTime, null);
+        }
         
-        List<Reservation> conflicts = reservationRepository.findConflictingReservations(roomId, date, startTime, endTime, null);
-        return conflicts.isEmpty(); 
+        return !reservationRepository.existsOverlappingForRoom(roomId,
+                ReservationService.rangeStart(date, startTime),
+                ReservationService.rangeEnd(date, startTime, endTime),
+                null);
+    }
+
+    /**
+     * Verifica muchas combinaciones sala/fecha/horario de una vez: toma las
+     * salas del catálogo en memoria y resuelve cada combinación contra el
+     * índice en memoria; si el índice no cubre la fecha (o aún no cargó) se
+     * consulta la BD, igual que isRoomAvailable. Las combinaciones inválidas
+     * se responden como no disponibles.
+     */
+    public List<AvailabilityCheckDTO> checkAvailabilityBatch(List<AvailabilityCheckDTO> checks) {
+        if (checks.size() > MAX_BATCH_CHECKS) {
+            throw new IllegalArgumentException("Máximo " + MAX_BATCH_CHECKS + " verificaciones por solicitud");
+        }
+
+        List<AvailabilityCheckDTO> results = new ArrayList<>(checks.size());
+        for (AvailabilityCheckDTO check : checks) {
+            results.add(new AvailabilityCheckDTO(check.getRoomId(), check.getDate(),
+                    check.getStartTime(), check.getEndTime(), isAvailable(check)));
+        }
+        return results;
+    }
+
+    private boolean isAvailable(AvailabilityCheckDTO check) {
+        if (check.getRoomId() == null) {
+            return false;
+        }
+        RoomDTO room = roomCatalog.findById(check.getRoomId()).orElse(null);
+        if (room == null || !room.getIsAvailable()) {
+            return false;
+        }
+        LocalDate date;
+        LocalTime startTime;
+        LocalTime endTime;
+        try {
+            date = LocalDate.parse(check.getDate());
+            startTime = LocalTime.parse(check.getStartTime());
+            endTime = LocalTime.parse(check.getEndTime());
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (availabilityIndex.covers(date)) {
+            return !availabilityIndex.hasRoomConflict(room.getId(), date, startTime, endTime, null);
+        }
+        return !reservationRepository.existsOverlappingForRoom(room.getId(),
+                ReservationService.rangeStart(date, startTime),
+                ReservationService.rangeEnd(date, startTime, endTime),
+                null);
+    }
+
+    /**
+     * Busca los K horarios libres más cercanos a la hora preferida entre
+     * todas las salas con capacidad suficiente. Para cada sala se recorren
+     * los intervalos ocupados del índice y, en cada hueco donde cabe la
+     * duración pedida, se toman los inicios (alineados a bloques de 15
+     * minutos) más cercanos a la hora preferida, hasta K por hueco. Empieza
+     * con un radio de un día y lo amplía solo si no encuentra suficientes
+     * opciones.
+     */
+    public List<SlotSuggestionDTO> findNextAvailableSlots(Integer numberOfPeople, LocalDate date,
+            LocalTime preferredTime, Integer durationMinutes, Integer limit) {
+        if (numberOfPeople == null || numberOfPeople < 2 || numberOfPeople > 15) {
+            throw new IllegalArgumentException("El número de personas debe estar entre 2 y 15");
+        }
+        if (durationMinutes == null || durationMinutes < ReservationService.MIN_DURATION
+                || durationMinutes > ReservationService.MAX_DURATION) {
+            throw new IllegalArgumentException("La duración debe estar entre 30 y 120 minutos");
+        }
+        if (limit == null || limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Se pueden pedir entre 1 y " + MAX_SUGGESTIONS + " opciones");
+        }
+
+        LocalDate today = LocalDate.now();
+        if (!availabilityIndex.covers(today)) {
+            throw new IllegalArgumentException("La disponibilidad aún se está cargando, intenta nuevamente");
+        }
+        long now = ReservationSlot.startOf(today, LocalTime.now());
+        long firstStart = alignUp(now);
+        // La fecha de la reserva (la del inicio) no puede pasar de MAX_DAYS_ADVANCE
+        long lastStart = ReservationSlot.startOf(today.plusDays(ReservationService.MAX_DAYS_ADVANCE + 1L),
+                LocalTime.MIDNIGHT) - AvailabilityIndex.SLOT_MINUTES;
+        long preferred = Math.max(alignUp(ReservationSlot.startOf(date, preferredTime)), firstStart);
+        if (preferred > lastStart) {
+            throw new IllegalArgumentException("Máximo 2 meses de anticipación");
+        }
+
+        List<RoomDTO> rooms = roomCatalog.findAvailableByCapacity(numberOfPeople);
+        List<long[]> candidates = new ArrayList<>();
+        for (long radius : SEARCH_RADIUS_MINUTES) {
+            candidates.clear();
+            long from = Math.max(firstStart, preferred - radius);
+            long to = Math.min(lastStart, preferred + radius);
+            for (int i = 0; i < rooms.size(); i++) {
+                collectCandidates(rooms.get(i).getId(), i, from, to, durationMinutes, preferred, limit,
+                        candidates);
+            }
+            if (candidates.size() >= limit) {
+                break;
+            }
+        }
+
+        // candidato = { inicio, índice de sala }
+        candidates.sort(Comparator
+                .comparingLong((long[] c) -> Math.abs(c[0] - preferred))
+                .thenComparingLong(c -> c[0])
+                .thenComparing(c -> rooms.get((int) c[1]).getPricePerHour()));
+
+        return candidates.stream()
+                .limit(limit)
+                .map(c -> toSuggestion(rooms.get((int) c[1]), c[0], durationMinutes))
+                .collect(Collectors.toList());
+    }
+
+    // Recorre los huecos libres de la sala entre [from, to + duración)
+    private void collectCandidates(Integer roomId, int roomIndex, long from, long to, int duration,
+            long preferred, int perGap, List<long[]> candidates) {
+        long gapStart = from;
+        for (long[] busy : availabilityIndex.busyIntervals(roomId, from, to + duration)) {
+            addGapCandidates(gapStart, busy[0], to, duration, preferred, perGap, roomIndex, candidates);
+            gapStart = Math.max(gapStart, busy[1]);
+        }
+        addGapCandidates(gapStart, to + duration, to, duration, preferred, perGap, roomIndex, candidates);
+    }
+
+    // Hasta perGap inicios del hueco, del más cercano al más lejano de la hora preferida (ya alineada)
+    private void addGapCandidates(long gapStart, long gapEnd, long lastStart, int duration, long preferred,
+            int perGap, int roomIndex, List<long[]> candidates) {
+        long earliest = alignUp(gapStart);
+        long latest = Math.min(alignDown(gapEnd - duration), lastStart);
+        if (earliest > latest) {
+            return;
+        }
+        long up = Math.min(Math.max(preferred, earliest), latest);
+        long down = up - AvailabilityIndex.SLOT_MINUTES;
+        for (int added = 0; added < perGap && (up <= latest || down >= earliest); added++) {
+            boolean takeUp = up <= latest
+                    && (down < earliest || Math.abs(up - preferred) <= Math.abs(down - preferred));
+            if (takeUp) {
+                candidates.add(new long[] { up, roomIndex });
+                up += AvailabilityIndex.SLOT_MINUTES;
+            } else {
+                candidates.add(new long[] { down, roomIndex });
+                down -= AvailabilityIndex.SLOT_MINUTES;
+            }
+        }
+    }
+
+    private static long alignUp(long minute) {
+        return Math.floorDiv(minute + AvailabilityIndex.SLOT_MINUTES - 1, AvailabilityIndex.SLOT_MINUTES)
+                * AvailabilityIndex.SLOT_MINUTES;
+    }
+
+    private static long alignDown(long minute) {
+        return Math.floorDiv(minute, AvailabilityIndex.SLOT_MINUTES) * AvailabilityIndex.SLOT_MINUTES;
+    }
+
+    private SlotSuggestionDTO toSuggestion(RoomDTO room, long start, int duration) {
+        long end = start + duration;
+        return new SlotSuggestionDTO(
+                room.getId(),
+                room.getName(),
+                room.getMaxCapacity(),
+                room.getPricePerHour(),
+                LocalDate.ofEpochDay(Math.floorDiv(start, ReservationSlot.MINUTES_PER_DAY)),
+                LocalTime.ofSecondOfDay(Math.floorMod(start, ReservationSlot.MINUTES_PER_DAY) * 60L),
+                LocalTime.ofSecondOfDay(Math.floorMod(end, ReservationSlot.MINUTES_PER_DAY) * 60L));
+    }
+
+    /**
+     * Grilla de ocupación de todas las salas en bloques de 15 minutos para
+     * uno o varios días: fecha -> (id de sala -> cadena de '0'/'1', un
+     * carácter por bloque). Se arma con los bitsets del índice, sin consultar
+     * reservas en la BD.
+     */
+    public Map<String, Map<Integer, String>> getAvailabilityGrid(LocalDate from, int days) {
+        if (days < 1 || days > MAX_GRID_DAYS) {
+            throw new IllegalArgumentException("El rango debe ser de 1 a " + MAX_GRID_DAYS + " días");
+        }
+        if (!availabilityIndex.covers(from)) {
+            throw new IllegalArgumentException("No se puede consultar la disponibilidad de fechas pasadas");
+        }
+        if (from.plusDays(days - 1L).isAfter(LocalDate.now().plusDays(ReservationService.MAX_DAYS_ADVANCE))) {
+            throw new IllegalArgumentException("Máximo 2 meses de anticipación");
+        }
+
+        List<RoomDTO> rooms = roomCatalog.findAll();
+        Map<String, Map<Integer, String>> grid = new LinkedHashMap<>();
+        for (int i = 0; i < days; i++) {
+            LocalDate date = from.plusDays(i);
+            Map<Integer, String> byRoom = new LinkedHashMap<>();
+            for (RoomDTO room : rooms) {
+                byRoom.put(room.getId(), toSlotString(availabilityIndex.occupancy(room.getId(), date)));
+            }
+            grid.put(date.toString(), byRoom);
+        }
+        return grid;
+    }
+
+    private String toSlotString(BitSet busy) {
+        char[] slots = new char[AvailabilityIndex.SLOTS_PER_DAY];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = busy.get(i) ? '1' : '0';
+        }
+        return new String(slots);
     }
 
     public boolean canRoomAccommodate(Integer roomId, Integer numberOfPeople) {
-        return roomRepository.findById(roomId)
+        return roomCatalog.findById(roomId)
                 .map(room -> room.getMinCapacity() <= numberOfPeople && room.getMaxCapacity() >= numberOfPeople)
                 .orElse(false);
     }
@@ -76,7 +286,9 @@ public class RoomService {
     }
 
     public Room save(Room room) {
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        publisher.publishEvent(new RoomChanged(saved.getId()));
+        return saved;
     }
 
     public void updateRoomAvailability(Integer roomId, boolean isAvailable) {
@@ -84,6 +296,7 @@ public class RoomService {
                 .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada"));
         room.setIsAvailable(isAvailable);
         roomRepository.save(room);
+        publisher.publishEvent(new RoomChanged(roomId));
     }
 
     public List<Room> findAll() {
@@ -104,5 +317,6 @@ public class RoomService {
                 .orElseThrow(() -> new IllegalArgumentException("Sala no encontrada"));
         room.setIsAvailable(true);
         roomRepository.save(room);
+        publisher.publishEvent(new RoomChanged(roomId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache de usuarios por email normalizado y por id, con vigencia corta y
+ * tamaño máximo (se descarta el menos usado). Los usuarios guardados están
+ * desacoplados de la sesión de JPA y se comparten: son de solo lectura.
+ *
+ * Al modificar un usuario se descarta la entrada en el momento y otra vez
+ * después del commit, para que una lectura concurrente no deje guardados
+ * los datos anteriores.
+ */
+@Component
+public class UserCache {
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Map<Integer, Entry> byId;
+    private final Map<String, Integer> idByEmail = new HashMap<>();
+
+    public UserCache(MeterRegistry meterRegistry,
+            @Value("${karaoke.users.cache-ttl-ms:60000}") long ttlMillis,
+            @Value("${karaoke.users.cache-max-size:1000}") int maxSize) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > UserCache.this.maxSize) {
+                    idByEmail.remove(eldest.getValue().email());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("karaoke.users.cache")
+                .tag("result", "hit")
+                .description("Búsquedas de usuario resueltas desde la cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("karaoke.users.cache")
+                .tag("result", "miss")
+                .description("Búsquedas de usuario que fueron a la base de datos")
+                .register(meterRegistry);
+        Gauge.builder("karaoke.users.cache.size", this, UserCache::size)
+                .description("Usuarios en la cache")
+                .register(meterRegistry);
+    }
+
+    public synchronized Optional<User> getByEmail(String normalizedEmail) {
+        Integer id = idByEmail.get(normalizedEmail);
+        return id != null ? getById(id) : miss();
+    }
+
+    public synchronized Optional<User> getById(Integer id) {
+        Entry entry = byId.get(id);
+        if (entry == null) {
+            return miss();
+        }
+        if (entry.expiresAt() - System.nanoTime() < 0) {
+            remove(id);
+            return miss();
+        }
+        hits.increment();
+        return Optional.of(entry.user());
+    }
+
+    public synchronized void put(User user) {
+        if (user.getId() == null || user.getEmail() == null) {
+            return;
+        }
+        remove(user.getId());
+        String email = normalize(user.getEmail());
+        byId.put(user.getId(), new Entry(user, email, System.nanoTime() + ttlNanos));
+        idByEmail.put(email, user.getId());
+    }
+
+    public void evict(Integer id) {
+        evictNow(id);
+        afterCommit(() -> evictNow(id));
+    }
+
+    public void evictEmail(String email) {
+        String normalized = normalize(email);
+        evictEmailNow(normalized);
+        afterCommit(() -> evictEmailNow(normalized));
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    // Misma forma en que se guarda el email (ver db/schema/03-user-email-normalized.sql)
+    static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized void evictNow(Integer id) {
+        remove(id);
+    }
+
+    private synchronized void evictEmailNow(String normalizedEmail) {
+        Integer id = idByEmail.get(normalizedEmail);
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    private void remove(Integer id) {
+        Entry removed = byId.remove(id);
+        if (removed != null) {
+            idByEmail.remove(removed.email());
+        }
+    }
+
+    private Optional<User> miss() {
+        misses.increment();
+        return Optional.empty();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record Entry(User user, String email, long expiresAt) {
+    }
+}
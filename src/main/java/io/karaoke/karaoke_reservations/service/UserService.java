@@ -3,6 +3,8 @@ package io.karaoke.karaoke_reservations.service;
 import io.karaoke.karaoke_reservations.domain.User;
 import io.karaoke.karaoke_reservations.repos.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,14 +17,25 @@ import java.util.Optional;
 @Transactional
 public class UserService {
 
+    // Ver db/schema/06-user-email-unique.sql
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "users_email_unique";
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final EmailFilter emailFilter;
 
     public boolean emailExists(String email) {
         if (email == null || email.trim().isEmpty()) {
             return false;
         }
-        return userRepository.existsByEmailIgnoreCase(email.trim());
+        // El filtro descarta sin consultar los emails que seguro no están registrados
+        String normalized = UserCache.normalize(email);
+        if (!emailFilter.mightContain(normalized)) {
+            return false;
+        }
+        return userRepository.existsByEmail(normalized);
     }
 
     public User registerUser(User user) {
@@ -30,29 +43,66 @@ public class UserService {
             throw new IllegalArgumentException("El email no puede estar vacío");
         }
         
-        user.setEmail(user.getEmail().trim().toLowerCase());
+        user.setEmail(UserCache.normalize(user.getEmail()));
         user.setFullName(user.getFullName().trim());
         
         if (user.getPhoneNumber() != null) {
             user.setPhoneNumber(user.getPhoneNumber().trim());
         }
 
-        if (emailExists(user.getEmail())) {
-            throw new IllegalArgumentException("El email ya está registrado");
-        }
-
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setAdmin(false); // Siempre false para registros normales
-        return userRepository.save(user);
+        return saveNewUser(user);
     }
 
+    // El índice único del email decide si ya está registrado (sin consulta previa)
+    private User saveNewUser(User user) {
+        userCache.evictEmail(user.getEmail());
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new IllegalArgumentException("El email ya está registrado");
+            }
+            throw e;
+        }
+        emailFilter.add(saved.getEmail());
+        return saved;
+    }
+
+    // Violación de la restricción única de users.email al hacer flush (SQLState y nombre, no el texto)
+    private boolean isDuplicateEmail(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return UNIQUE_VIOLATION.equals(violation.getSQLState())
+                        && EMAIL_UNIQUE_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    // Lecturas desde la cache; el usuario devuelto no se debe modificar
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email.trim().toLowerCase())
+        String normalized = UserCache.normalize(email);
+        return userCache.getByEmail(normalized)
+                .or(() -> userRepository.findByEmail(normalized).map(this::cache))
                 .orElse(null);
     }
 
     public Optional<User> findById(Integer id) {
-        return userRepository.findById(id);
+        return userCache.getById(id)
+                .or(() -> userRepository.findById(id).map(this::cache));
+    }
+
+    private User cache(User user) {
+        userCache.put(user);
+        return user;
+    }
+
+    // Referencia sin consulta, para asociar el usuario autenticado a una reserva
+    public User getReference(Integer id) {
+        return userRepository.getReferenceById(id);
     }
 
     public List<User> findAllUsers() {
@@ -75,6 +125,7 @@ public class UserService {
             existingUser.setPhoneNumber(userDetails.getPhoneNumber().trim());
         }
 
+        userCache.evict(userId);
         return userRepository.save(existingUser);
     }
 
@@ -82,25 +133,22 @@ public class UserService {
         if (!userRepository.existsById(userId)) {
             throw new IllegalArgumentException("Usuario no encontrado");
         }
+        userCache.evict(userId);
         userRepository.deleteById(userId);
     }
 
     // Método solo para administradores
     public User createAdminUser(User user) {
-        if (emailExists(user.getEmail())) {
-            throw new IllegalArgumentException("El email ya está registrado");
-        }
-
-        user.setEmail(user.getEmail().trim().toLowerCase());
+        user.setEmail(UserCache.normalize(user.getEmail()));
         user.setFullName(user.getFullName().trim());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setAdmin(true);
         
-        return userRepository.save(user);
+        return saveNewUser(user);
     }
 
     public boolean isAdmin(Integer userId) {
-        return userRepository.findById(userId)
+        return findById(userId)
                 .map(User::isAdmin)
                 .orElse(false);
     }
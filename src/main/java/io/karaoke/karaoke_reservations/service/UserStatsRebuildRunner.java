@@ -0,0 +1,23 @@
+package io.karaoke.karaoke_reservations.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfill del resumen por usuario al arrancar con --rebuild-user-stats.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatsRebuildRunner implements ApplicationRunner {
+
+    private final UserStatsService userStatsService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("rebuild-user-stats")) {
+            userStatsService.rebuildAll();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.domain.ReservationStatus;
+import io.karaoke.karaoke_reservations.domain.UserReservationStats;
+import io.karaoke.karaoke_reservations.repos.UserReservationStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Mantiene el resumen de reservas por usuario (conteos por estado, total
+ * gastado y última visita). Cada cambio de estado se aplica como un delta en
+ * la transacción de la reserva; si el usuario todavía no tiene fila, se
+ * calcula completa desde sus reservas.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class UserStatsService {
+
+    private final UserReservationStatsRepository statsRepository;
+
+    /**
+     * Registra el paso de una reserva de previousStatus a currentStatus.
+     * previousStatus es null al crearla y currentStatus es null al eliminarla.
+     */
+    public void record(Reservation reservation, ReservationStatus previousStatus, ReservationStatus currentStatus) {
+        if (previousStatus == currentStatus) {
+            return;
+        }
+
+        long confirmed = delta(ReservationStatus.CONFIRMED, previousStatus, currentStatus);
+        long cancelled = delta(ReservationStatus.CANCELLED, previousStatus, currentStatus);
+        long completed = delta(ReservationStatus.COMPLETED, previousStatus, currentStatus);
+        BigDecimal price = reservation.getTotalPrice() != null ? reservation.getTotalPrice() : BigDecimal.ZERO;
+        BigDecimal spent = price.multiply(BigDecimal.valueOf(completed));
+
+        Integer userId = reservation.getUser().getId();
+        int updated = statsRepository.applyDelta(userId, confirmed, cancelled, completed, spent,
+                currentStatus == ReservationStatus.COMPLETED ? reservation.getReservationDate() : null,
+                previousStatus == ReservationStatus.COMPLETED);
+        if (updated == 0) {
+            // Primera vez para este usuario: el cambio ya está en la BD, se calcula todo
+            statsRepository.rebuildForUser(userId);
+        }
+    }
+
+    /**
+     * Registra varias reservas del mismo usuario que pasaron de CONFIRMED a
+     * COMPLETED de una vez (autocompletado), con un solo UPDATE.
+     */
+    public void recordCompleted(Integer userId, long count, BigDecimal spent, LocalDate lastVisit) {
+        int updated = statsRepository.applyDelta(userId, -count, 0, count, spent, lastVisit, false);
+        if (updated == 0) {
+            statsRepository.rebuildForUser(userId);
+        }
+    }
+
+    private static long delta(ReservationStatus status, ReservationStatus previousStatus,
+            ReservationStatus currentStatus) {
+        return (currentStatus == status ? 1 : 0) - (previousStatus == status ? 1 : 0);
+    }
+
+    // Resumen del usuario: una sola fila (se crea si aún no existe)
+    public UserReservationStats getStats(Integer userId) {
+        return statsRepository.findById(userId).orElseGet(() -> {
+            statsRepository.rebuildForUser(userId);
+            return statsRepository.findById(userId).orElseThrow();
+        });
+    }
+
+    // Recalcula el resumen de varios usuarios (después de una carga masiva)
+    public void rebuildForUsers(Collection<Integer> userIds) {
+        userIds.forEach(statsRepository::rebuildForUser);
+    }
+
+    // Recalcula el resumen de todos los usuarios desde sus reservas
+    public int rebuildAll() {
+        int rows = statsRepository.rebuildAll();
+        log.info("Resumen de reservas recalculado para {} usuarios", rows);
+        return rows;
+    }
+}
@@ -0,0 +1,41 @@
+-- Rango normalizado [inicio, fin) de cada reserva. Las reservas que cruzan
+-- medianoche terminan al dia siguiente, asi que un solo && cubre todos los
+-- casos. Es una columna generada: Postgres la mantiene en cada INSERT/UPDATE.
+-- Este script se ejecuta en cada arranque, despues de que Hibernate actualiza
+-- el esquema, por lo que todo debe ser idempotente.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS time_range tsrange
+    GENERATED ALWAYS AS (
+        tsrange(
+            reservation_date + start_time,
+            CASE WHEN end_time < start_time
+                 THEN reservation_date + 1 + end_time
+                 ELSE reservation_date + end_time
+            END,
+            '[)')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS reservations_user_time_range_idx
+    ON reservations USING gist (user_id, time_range)
+    WHERE status <> 'CANCELLED';
+
+-- Ultima barrera contra la doble reserva: dos reservas activas de la misma
+-- sala no pueden solaparse. Su indice GiST atiende las consultas por sala.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'reservations_room_no_overlap') THEN
+        ALTER TABLE reservations
+            ADD CONSTRAINT reservations_room_no_overlap
+            EXCLUDE USING gist (room_id WITH =, time_range WITH &&)
+            WHERE (status <> 'CANCELLED');
+    END IF;
+EXCEPTION
+    WHEN exclusion_violation THEN
+        RAISE WARNING 'reservations_room_no_overlap no se pudo crear: existen reservas solapadas';
+        CREATE INDEX IF NOT EXISTS reservations_room_time_range_idx
+            ON reservations USING gist (room_id, time_range)
+            WHERE status <> 'CANCELLED';
+END
+$$;
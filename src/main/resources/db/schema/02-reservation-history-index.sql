@@ -0,0 +1,5 @@
+-- Historial por usuario: filtro y paginacion por (fecha, hora de inicio, id)
+-- se resuelven recorriendo este indice en cualquier direccion.
+
+CREATE INDEX IF NOT EXISTS reservations_user_date_idx
+    ON reservations (user_id, reservation_date, start_time, id);
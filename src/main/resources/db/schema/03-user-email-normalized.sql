@@ -0,0 +1,25 @@
+-- Los emails se guardan normalizados (sin espacios y en minusculas), asi las
+-- busquedas comparan email = :email y usan el indice unico de la columna en
+-- lugar de recorrer la tabla con LOWER(email).
+
+DO $$
+BEGIN
+    -- Normaliza los emails antiguos que no choquen con otro usuario
+    UPDATE users u SET email = LOWER(TRIM(u.email))
+    WHERE u.email <> LOWER(TRIM(u.email))
+      AND NOT EXISTS (SELECT 1 FROM users o
+                      WHERE o.id <> u.id AND LOWER(TRIM(o.email)) = LOWER(TRIM(u.email)));
+
+    -- NOT VALID: se exige en cada INSERT/UPDATE aunque queden filas antiguas
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'users_email_normalized') THEN
+        ALTER TABLE users
+            ADD CONSTRAINT users_email_normalized CHECK (email = LOWER(TRIM(email))) NOT VALID;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM users WHERE email <> LOWER(TRIM(email))) THEN
+        RAISE WARNING 'users_email_normalized sin validar: hay emails duplicados que difieren solo en mayusculas';
+    ELSE
+        ALTER TABLE users VALIDATE CONSTRAINT users_email_normalized;
+    END IF;
+END
+$$;
@@ -0,0 +1,22 @@
+-- Reservas y usuarios toman sus ids de secuencias con incremento 50: Hibernate
+-- reserva un bloque de 50 ids por cada nextval (optimizador pooled) y puede
+-- agrupar los INSERT en lotes, cosa que IDENTITY impide.
+-- Cada nextval reserva el bloque (valor - 49 .. valor], asi que los INSERT
+-- manuales que usan el DEFAULT de la columna no chocan con los de Hibernate.
+
+CREATE SEQUENCE IF NOT EXISTS reservations_seq INCREMENT BY 50;
+ALTER SEQUENCE reservations_seq INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS users_seq INCREMENT BY 50 START WITH 10000;
+ALTER SEQUENCE users_seq INCREMENT BY 50;
+
+-- Las secuencias deben quedar por encima de los ids ya usados (IDENTITY y primary_sequence)
+SELECT setval('reservations_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM reservations))
+WHERE (SELECT last_value FROM reservations_seq) < (SELECT COALESCE(MAX(id), 0) + 50 FROM reservations);
+
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM users))
+WHERE (SELECT last_value FROM users_seq) < (SELECT COALESCE(MAX(id), 0) + 50 FROM users);
+
+-- La columna id de reservas deja de ser IDENTITY; los INSERT sin id usan la secuencia
+ALTER TABLE reservations ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE reservations ALTER COLUMN id SET DEFAULT nextval('reservations_seq');
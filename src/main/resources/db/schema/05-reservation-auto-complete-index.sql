@@ -0,0 +1,7 @@
+-- Autocompletado de reservas pasadas: busca las CONFIRMED cuyo fin ya paso.
+-- upper(time_range) ya incluye el cruce de medianoche, y el indice parcial
+-- solo contiene las reservas pendientes, asi que se mantiene chico.
+
+CREATE INDEX IF NOT EXISTS reservations_confirmed_end_idx
+    ON reservations (upper(time_range))
+    WHERE status = 'CONFIRMED';
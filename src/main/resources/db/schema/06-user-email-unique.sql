@@ -0,0 +1,30 @@
+-- Nombre fijo para la restriccion unica de users.email: el registro reconoce
+-- un email duplicado por SQLState 23505 y este nombre, no por el texto del
+-- error. Las bases creadas antes tienen el nombre generado por Hibernate; se
+-- renombra (o se elimina si ddl-auto ya agrego la nueva) para que quede una sola.
+
+DO $$
+DECLARE
+    old_name text;
+BEGIN
+    FOR old_name IN
+        SELECT c.conname
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attname = 'email'
+        WHERE c.conrelid = 'users'::regclass
+          AND c.contype = 'u'
+          AND c.conkey = ARRAY[a.attnum]
+          AND c.conname <> 'users_email_unique'
+    LOOP
+        IF EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'users_email_unique') THEN
+            EXECUTE format('ALTER TABLE users DROP CONSTRAINT %I', old_name);
+        ELSE
+            EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO users_email_unique', old_name);
+        END IF;
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'users_email_unique') THEN
+        ALTER TABLE users ADD CONSTRAINT users_email_unique UNIQUE (email);
+    END IF;
+END
+$$;
@@ -10,12 +10,12 @@ class AdminReservationCalendar extends ReservationCalendar {
     }
 
     /**
-     * Carga las reservas desde el backend para admin (todas las reservas)
+     * Carga las reservas del mes visible desde el backend para admin (todas las reservas)
      */
     async loadReservations() {
         try {
-            // Endpoint específico para admin que devuelve todas las reservas
-            const resp = await fetch('/reservations/calendar/api/admin', { 
+            // Endpoint específico para admin que devuelve todas las reservas del mes visible
+            const resp = await fetch(`/reservations/calendar/api/admin?${this.calendarWindowQuery()}`, { 
                 method: 'GET', 
                 headers: { 'Accept': 'application/json' } 
             });
@@ -47,6 +47,18 @@ class AdminReservationCalendar extends ReservationCalendar {
         }
     }
 
+    // Canal de avisos de admin: cambios de todas las reservas
+    updatesUrl() {
+        return '/reservations/calendar/stream/admin';
+    }
+
+    // Con el canal abierto, el aviso del servidor ya actualiza el calendario
+    async refreshAfterAction() {
+        if (!this.liveUpdates || this.liveUpdates.readyState !== EventSource.OPEN) {
+            await this.loadReservations();
+        }
+    }
+
     // El resto de los métodos se mantienen igual...
     setupTabs() {
         const tabBtns = document.querySelectorAll('.tab-btn');
@@ -201,7 +213,7 @@ class AdminReservationCalendar extends ReservationCalendar {
 
             if (response.ok && result.success) {
                 this.showNotification(result.message || 'Reservación marcada como completada exitosamente', 'success');
-                await this.loadReservations();
+                await this.refreshAfterAction();
             } else {
                 throw new Error(result.message || 'Error al completar la reservación');
             }
@@ -243,7 +255,7 @@ class AdminReservationCalendar extends ReservationCalendar {
 
             if (response.ok && result.success) {
                 this.showNotification(result.message || 'Estado de reservación revertido exitosamente', 'success');
-                await this.loadReservations();
+                await this.refreshAfterAction();
             } else {
                 throw new Error(result.message || 'Error al revertir la reservación');
             }
@@ -284,7 +296,7 @@ class AdminReservationCalendar extends ReservationCalendar {
 
             if (response.ok && result.success) {
                 this.showNotification(result.message || 'Cancelación revertida exitosamente', 'success');
-                await this.loadReservations(); // Reload reservations to show the change
+                await this.refreshAfterAction();
             } else {
                 throw new Error(result.message || 'Error al revertir la cancelación');
             }
@@ -11,7 +11,8 @@ document.addEventListener('DOMContentLoaded', () => {
     async function loadCalendarReservations() {
         try {
             console.log('Cargando reservaciones para el calendario desde el backend...');
-            const response = await fetch('/reservations/calendar/api');
+            const query = window.reservationCalendar ? `?${window.reservationCalendar.calendarWindowQuery()}` : '';
+            const response = await fetch(`/reservations/calendar/api${query}`);
             
             if (response.ok) {
                 const data = await response.json();
@@ -2,6 +2,7 @@ class ReservationCalendar {
     constructor() {
         this.currentDate = new Date();
         this.reservations = {};
+        this.liveUpdates = null;
         this.init();
     }
 
@@ -16,16 +17,104 @@ class ReservationCalendar {
         } catch (err) {
             console.error('Error cargando reservas en init():', err);
         }
+        // En el panel de admin el calendario de admin abre su propio canal
+        if (typeof AdminReservationCalendar === 'undefined' || this instanceof AdminReservationCalendar) {
+            this.subscribeToUpdates();
+        }
+    }
+
+    // Canal de avisos en vivo (Server-Sent Events)
+    updatesUrl() {
+        return '/reservations/calendar/stream';
+    }
+
+    /**
+     * Se suscribe a los cambios de reservas. Cada aviso actualiza solo la
+     * reserva afectada; si la conexión se corta, al reconectar se recarga el
+     * mes visible para no perder cambios.
+     */
+    subscribeToUpdates() {
+        if (!window.EventSource) return;
+
+        let lost = false;
+        this.liveUpdates = new EventSource(this.updatesUrl());
+        this.liveUpdates.addEventListener('reservation', (e) => {
+            try {
+                this.applyReservationDelta(JSON.parse(e.data));
+            } catch (err) {
+                console.error('Aviso de reserva inválido:', err);
+            }
+        });
+        // Muchos cambios a la vez (importación, autocompletado): recargar el mes visible
+        this.liveUpdates.addEventListener('reload', () => this.loadReservations());
+        this.liveUpdates.onerror = () => {
+            lost = true;
+        };
+        this.liveUpdates.onopen = () => {
+            if (lost) {
+                lost = false;
+                this.loadReservations();
+            }
+        };
+    }
+
+    // Aplica un aviso: quita la versión anterior de la reserva y agrega la nueva
+    applyReservationDelta(delta) {
+        for (const dateKey in this.reservations) {
+            this.reservations[dateKey] = this.reservations[dateKey].filter(r => r.id !== delta.id);
+            if (this.reservations[dateKey].length === 0) {
+                delete this.reservations[dateKey];
+            }
+        }
+
+        if (delta.action !== 'DELETED' && delta.reservation) {
+            const dateKey = delta.reservation.reservationDate;
+            (this.reservations[dateKey] = this.reservations[dateKey] || [])
+                .push(this.normalizeReservation(delta.reservation));
+            this.reservations[dateKey].sort((a, b) => (a.startTime || '').localeCompare(b.startTime || ''));
+        }
+
+        this.renderCalendar();
+    }
+
+    // Formato de una reserva que espera la UI
+    normalizeReservation(r) {
+        return {
+            id: r.id,
+            roomName: (r.room && r.room.name) ? r.room.name : (r.roomName || 'Sala no especificada'),
+            time: this.formatTimeRange(r.startTime, r.endTime),
+            people: r.numberOfPeople || r.people || 0,
+            status: r.status || 'confirmed',
+            canCancel: this.canCancelReservation(r),
+            customer: r.customer,
+            // mantener campos originales por si acaso
+            reservationDate: r.reservationDate,
+            startTime: r.startTime,
+            endTime: r.endTime
+        };
+    }
+
+    /**
+     * Parámetros from/to del mes visible, para pedir solo esas reservas.
+     */
+    calendarWindowQuery() {
+        const year = this.currentDate.getFullYear();
+        const month = this.currentDate.getMonth();
+        const pad = n => String(n).padStart(2, '0');
+        const toKey = date => `${date.getFullYear()}-${pad(date.getMonth() + 1)}-${pad(date.getDate())}`;
+        const from = toKey(new Date(year, month, 1));
+        const to = toKey(new Date(year, month + 1, 0));
+        return `from=${from}&to=${to}`;
     }
 
     /**
-     * Carga las reservas desde el backend y actualiza el calendario.
-     * Endpoint esperado: GET /api/reservations/calendar -> Array de reservas
+     * Carga las reservas del mes visible desde el backend y actualiza el calendario.
+     * Endpoint: GET /reservations/calendar/api?from=YYYY-MM-DD&to=YYYY-MM-DD
      */
     async loadReservations() {
         try {
             // Endpoint que sirve el backend en este proyecto
-            const resp = await fetch('/reservations/calendar/api', { method: 'GET', headers: { 'Accept': 'application/json' } });
+            const resp = await fetch(`/reservations/calendar/api?${this.calendarWindowQuery()}`, { method: 'GET', headers: { 'Accept': 'application/json' } });
             if (!resp.ok) {
                 const body = await resp.text();
                 console.error('Error al obtener reservaciones (status no OK):', resp.status, body);
@@ -66,18 +155,7 @@ class ReservationCalendar {
             const raw = reservationsData.reservationsByDate;
             for (const dateKey in raw) {
                 if (!Array.isArray(raw[dateKey])) continue;
-                normalized[dateKey] = raw[dateKey].map(r => ({
-                    id: r.id,
-                    roomName: (r.room && r.room.name) ? r.room.name : (r.roomName || 'Sala no especificada'),
-                    time: this.formatTimeRange(r.startTime, r.endTime),
-                    people: r.numberOfPeople || r.people || 0,
-                    status: r.status || 'confirmed',
-                    canCancel: this.canCancelReservation(r),
-                    // mantener campos originales por si acaso
-                    reservationDate: r.reservationDate,
-                    startTime: r.startTime,
-                    endTime: r.endTime
-                }));
+                normalized[dateKey] = raw[dateKey].map(r => this.normalizeReservation(r));
             }
             this.reservations = normalized;
         } else if (typeof reservationsData === 'object') {
@@ -86,17 +164,7 @@ class ReservationCalendar {
             const normalized = {};
             for (const dateKey in reservationsData) {
                 if (!Array.isArray(reservationsData[dateKey])) continue;
-                normalized[dateKey] = reservationsData[dateKey].map(r => ({
-                    id: r.id,
-                    roomName: (r.room && r.room.name) ? r.room.name : (r.roomName || 'Sala no especificada'),
-                    time: this.formatTimeRange(r.startTime, r.endTime),
-                    people: r.numberOfPeople || r.people || 0,
-                    status: r.status || 'confirmed',
-                    canCancel: this.canCancelReservation(r),
-                    reservationDate: r.reservationDate,
-                    startTime: r.startTime,
-                    endTime: r.endTime
-                }));
+                normalized[dateKey] = reservationsData[dateKey].map(r => this.normalizeReservation(r));
             }
             this.reservations = normalized;
         } else {
@@ -344,13 +412,15 @@ class ReservationCalendar {
 
     setupEventListeners() {
         document.getElementById('prev-month')?.addEventListener('click', () => {
-            this.currentDate.setMonth(this.currentDate.getMonth() - 1);
+            this.currentDate.setMonth(this.currentDate.getMonth() - 1, 1);
             this.renderCalendar();
+            this.loadReservations();
         });
 
         document.getElementById('next-month')?.addEventListener('click', () => {
-            this.currentDate.setMonth(this.currentDate.getMonth() + 1);
+            this.currentDate.setMonth(this.currentDate.getMonth() + 1, 1);
             this.renderCalendar();
+            this.loadReservations();
         });
 
         document.querySelector('.close-modal')?.addEventListener('click', () => {
@@ -41,7 +41,7 @@ class ReservationApp {
             peopleInput.addEventListener('change', async (e) => {
                 const numberOfPeople = parseInt(e.target.value);
                 if (numberOfPeople >= 2 && numberOfPeople <= 15) {
-                    await this.roomManager.loadAvailableRooms(numberOfPeople);
+                    await this.roomManager.loadAvailableRooms(numberOfPeople, this.validator.formData);
                 }
             });
 
@@ -49,7 +49,7 @@ class ReservationApp {
                 const numberOfPeople = parseInt(e.target.value);
                 if (numberOfPeople >= 2 && numberOfPeople <= 15) {
                     setTimeout(async () => {
-                        await this.roomManager.loadAvailableRooms(numberOfPeople);
+                        await this.roomManager.loadAvailableRooms(numberOfPeople, this.validator.formData);
                     }, 300);
                 }
             });
@@ -67,7 +67,7 @@ class ReservationApp {
                         }
                         const formData = this.validator.formData;
                         if (formData.reservationDate && formData.startTime && formData.endTime) {
-                            await this.roomManager.loadAvailableRooms(formData.numberOfPeople);
+                            await this.roomManager.loadAvailableRooms(formData.numberOfPeople, formData);
                         }
                     }, 500);
                 });
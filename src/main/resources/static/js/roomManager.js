@@ -3,12 +3,14 @@ class RoomManager {
     constructor() {
         this.availableRooms = [];
         this.selectedRoom = null;
+        this.availabilityGrid = null;
+        this.availabilityGridLoadedAt = 0;
         this.currentFilters = {
             numberOfPeople: 2
         };
     }
 
-    async loadAvailableRooms(numberOfPeople = null) {
+    async loadAvailableRooms(numberOfPeople = null, schedule = null) {
         try {
             let url = '/api/rooms/available';
             if (numberOfPeople && numberOfPeople >= 2 && numberOfPeople <= 15) {
@@ -18,7 +20,18 @@ class RoomManager {
             const response = await fetch(url);
             if (!response.ok) throw new Error('Error al cargar salas');
             
-            this.availableRooms = await response.json();
+            let rooms = await response.json();
+
+            // Descartar las salas ocupadas en el horario elegido usando la grilla del día
+            if (schedule?.reservationDate && schedule?.startTime && schedule?.endTime) {
+                const grid = await this.loadAvailabilityGrid(schedule.reservationDate);
+                if (grid) {
+                    rooms = rooms.filter(room =>
+                        this.isRoomFree(room.id, schedule.startTime, schedule.endTime));
+                }
+            }
+
+            this.availableRooms = rooms;
             this.renderRooms();
             return this.availableRooms;
         } catch (error) {
@@ -28,6 +41,53 @@ class RoomManager {
         }
     }
 
+    // Ocupación de todas las salas para la fecha (y el día siguiente, por las
+    // reservas que cruzan medianoche) en una sola petición
+    async loadAvailabilityGrid(date) {
+        const isFresh = Date.now() - this.availabilityGridLoadedAt < 60000;
+        if (this.availabilityGrid?.from === date && isFresh) {
+            return this.availabilityGrid;
+        }
+
+        try {
+            const response = await fetch(`/api/rooms/availability-grid?date=${date}&days=2`);
+            if (!response.ok) throw new Error('Error al cargar la disponibilidad');
+
+            this.availabilityGrid = await response.json();
+            this.availabilityGridLoadedAt = Date.now();
+            return this.availabilityGrid;
+        } catch (error) {
+            console.error('Error loading availability grid:', error);
+            this.availabilityGrid = null;
+            return null;
+        }
+    }
+
+    isRoomFree(roomId, startTime, endTime) {
+        const grid = this.availabilityGrid;
+        if (!grid) return true;
+
+        const toMinutes = (time) => {
+            const [hours, minutes] = time.split(':').map(Number);
+            return hours * 60 + minutes;
+        };
+        const slotsPerDay = (24 * 60) / grid.slotMinutes;
+        const days = Object.values(grid.busy);
+        const start = toMinutes(startTime);
+        let end = toMinutes(endTime);
+        if (end < start) end += 24 * 60; // Cruza medianoche
+
+        const lastSlot = Math.ceil(end / grid.slotMinutes);
+        for (let slot = Math.floor(start / grid.slotMinutes); slot < lastSlot; slot++) {
+            const day = days[Math.floor(slot / slotsPerDay)];
+            const busy = day?.[roomId];
+            if (busy && busy[slot % slotsPerDay] === '1') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     renderRooms() {
         const container = document.getElementById('rooms-container');
         if (!container) return;
@@ -3,6 +3,11 @@ class SummaryReservation {
         this.validator = validator;
         this.roomManager = roomManager;
         this.extrasManager = extrasManager;
+        // Última cotización del servidor (/api/quote) y la consulta que la produjo
+        this.quote = null;
+        this.quoteQueryKey = null;
+        this.quoteTimer = null;
+        this.quoteController = null;
         this.init();
     }
 
@@ -154,24 +159,12 @@ class SummaryReservation {
 
     updateRoomPrice() {
         const roomPriceElement = document.getElementById('summary-room-price');
-        const selectedRoom = this.roomManager?.getSelectedRoom();
-        const formData = this.getCurrentFormData();
-
         if (!roomPriceElement) return;
 
-        if (!selectedRoom || !formData.startTime || !formData.endTime) {
-            roomPriceElement.textContent = '$0';
-            return;
-        }
-
-        try {
-            const durationInHours = this.calculateExactDurationInHours(formData.startTime, formData.endTime);
-            const roomPrice = selectedRoom.pricePerHour * durationInHours;
-            roomPriceElement.textContent = `$${Math.round(roomPrice).toLocaleString()}`;
-
-        } catch (error) {
-            roomPriceElement.textContent = '$0';
-        }
+        const quote = this.getCurrentQuote();
+        roomPriceElement.textContent = quote
+            ? `$${Math.round(Number(quote.roomPrice)).toLocaleString()}`
+            : '$0';
     }
 
     updateExtrasInfo() {
@@ -191,12 +184,17 @@ class SummaryReservation {
     }
 
     updatePricing() {
+        this.requestQuote();
+        this.renderTotal();
+    }
+
+    renderTotal() {
         const totalElement = document.getElementById('summary-total');
         if (!totalElement) return;
 
         try {
             const total = this.getCalculatedTotal();
-            totalElement.textContent = `$${total.toLocaleString()}`;
+            totalElement.textContent = `$${Math.round(total).toLocaleString()}`;
             this.animateTotalUpdate(totalElement);
 
         } catch (error) {
@@ -205,6 +203,83 @@ class SummaryReservation {
         }
     }
 
+    // Parámetros de /api/quote para la selección actual (null si falta sala u horario)
+    quoteQuery() {
+        const selectedRoom = this.roomManager?.getSelectedRoom();
+        const formData = this.getCurrentFormData();
+
+        if (!selectedRoom || !formData.startTime || !formData.endTime) {
+            return null;
+        }
+
+        const params = new URLSearchParams({
+            roomId: selectedRoom.id,
+            startTime: formData.startTime,
+            endTime: formData.endTime
+        });
+        const selectedExtras = this.extrasManager?.getSelectedExtras() || [];
+        selectedExtras.forEach(extra => params.append('extraIds', extra.id));
+        return params.toString();
+    }
+
+    // Pide la cotización al servidor solo si cambió la selección; los cambios
+    // seguidos (teclear una hora) se agrupan en una sola petición
+    requestQuote() {
+        const query = this.quoteQuery();
+        if (query === this.quoteQueryKey) return;
+
+        this.quoteQueryKey = query;
+        this.quote = null;
+        clearTimeout(this.quoteTimer);
+        if (this.quoteController) {
+            this.quoteController.abort();
+            this.quoteController = null;
+        }
+
+        if (query) {
+            this.quoteTimer = setTimeout(() => this.fetchQuote(query), 150);
+        }
+    }
+
+    async fetchQuote(query) {
+        const controller = new AbortController();
+        this.quoteController = controller;
+
+        try {
+            const response = await fetch(`/api/quote?${query}`, {
+                signal: controller.signal,
+                headers: { 'Accept': 'application/json' }
+            });
+            if (!response.ok) {
+                const body = await response.json().catch(() => ({}));
+                throw new Error(body.error || `HTTP ${response.status}`);
+            }
+            const quote = await response.json();
+
+            if (query === this.quoteQueryKey) {
+                this.quote = quote;
+                this.updateRoomPrice();
+                this.renderTotal();
+            }
+        } catch (error) {
+            if (error.name === 'AbortError') return;
+            console.error('Error obteniendo la cotización:', error);
+            // Permite reintentar en el siguiente cambio
+            if (query === this.quoteQueryKey) {
+                this.quoteQueryKey = null;
+            }
+        } finally {
+            if (this.quoteController === controller) {
+                this.quoteController = null;
+            }
+        }
+    }
+
+    getCurrentQuote() {
+        const query = this.quoteQuery();
+        return query && query === this.quoteQueryKey ? this.quote : null;
+    }
+
     getCurrentFormData() {
         return {
             reservationDate: document.getElementById('reservationDate')?.value || '',
@@ -214,27 +289,6 @@ class SummaryReservation {
         };
     }
 
-    calculateExactDurationInHours(startTime, endTime) {
-        if (!startTime || !endTime) return 0;
-
-        const startMinutes = this.timeToMinutes(startTime);
-        const endMinutes = this.timeToMinutes(endTime);
-        
-        let durationInMinutes;
-
-        if (endMinutes < startMinutes) {
-            // Reserva que pasa la medianoche
-            durationInMinutes = (24 * 60 - startMinutes) + endMinutes;
-        } else {
-            // Reserva normal
-            durationInMinutes = endMinutes - startMinutes;
-        }
-
-        // Convertir a horas con decimales exactos
-        const durationInHours = durationInMinutes / 60;
-        return durationInHours;
-    }
-
     timeToMinutes(timeString) {
         if (!timeString) return 0;
         const [hours, minutes] = timeString.split(':').map(Number);
@@ -253,39 +307,10 @@ class SummaryReservation {
         return Math.max(0, duration);
     }
 
+    // Total de la cotización del servidor para la selección actual (0 si aún no llega)
     getCalculatedTotal() {
-        let total = 0;
-
-        try {
-            const selectedRoom = this.roomManager?.getSelectedRoom();
-            const selectedExtras = this.extrasManager?.getSelectedExtras() || [];
-            const formData = this.getCurrentFormData();
-
-            if (!selectedRoom || !formData.startTime || !formData.endTime) {
-                return total;
-            }
-
-            const durationInHours = this.calculateExactDurationInHours(formData.startTime, formData.endTime);
-            const roomPrice = selectedRoom.pricePerHour * durationInHours;
-            total += roomPrice;
-
-            const extrasPrice = selectedExtras.reduce((sum, extra) => sum + (extra.price || 0), 0);
-            total += extrasPrice;
-
-            console.log('🔢 CÁLCULO TOTAL FINAL:', {
-                sala: selectedRoom.name,
-                precioHora: selectedRoom.pricePerHour,
-                duracion: durationInHours.toFixed(2) + ' horas',
-                precioSala: Math.round(roomPrice),
-                extras: extrasPrice,
-                total: Math.round(total)
-            });
-
-        } catch (error) {
-            console.error('Error calculando total:', error);
-        }
-
-        return Math.round(total);
+        const quote = this.getCurrentQuote();
+        return quote ? Number(quote.total) : 0;
     }
 
     animateTotalUpdate(element) {
@@ -0,0 +1,8 @@
+package io.karaoke.karaoke_reservations.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Bloqueos pg_advisory_xact_lock (varias instancias)
+@TestPropertySource(properties = "karaoke.booking.lock-mode=advisory")
+class AdvisoryLockBookingConcurrencyTest extends BookingConcurrencyTest {
+}
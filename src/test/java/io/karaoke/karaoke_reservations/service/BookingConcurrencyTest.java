@@ -0,0 +1,207 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.PostgresIntegrationTest;
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.domain.User;
+import io.karaoke.karaoke_reservations.repos.RoomRepository;
+import io.karaoke.karaoke_reservations.repos.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reservas simultáneas con BookingLockManager. Las subclases fijan el modo
+ * de bloqueo.
+ *
+ * Misma sala y horario: gana una sola y las demás se rechazan en la
+ * validación hecha con el bloqueo tomado, no en la restricción de exclusión
+ * (ese rechazo lleva la DataIntegrityViolationException como causa).
+ *
+ * Distintas salas y días: los bloqueos no se cruzan, así que todas las
+ * reservas deben estar dentro de su transacción al mismo tiempo.
+ */
+abstract class BookingConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int PARALLEL = 4;
+    private static final LocalTime START = LocalTime.of(20, 0);
+    private static final LocalTime END = LocalTime.of(21, 0);
+
+    // Mensajes de checkBooking para la sala ya reservada (la primera reserva marca la sala como no disponible)
+    private static final Set<String> LOCKED_REJECTIONS = Set.of(
+            "La sala no está disponible en el horario seleccionado",
+            "La sala no está disponible");
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BookingLockManager bookingLockManager;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void onlyOneConcurrentBookingOfTheSameSlotSucceeds() throws Exception {
+        Room room = createRoom();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            users.add(createUser());
+        }
+        LocalDate date = LocalDate.now().plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Reservation>> results = new ArrayList<>();
+        try {
+            for (User user : users) {
+                results.add(executor.submit(() -> {
+                    Reservation reservation = newReservation(room, user, date);
+                    start.await();
+                    return reservationService.createReservation(reservation);
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Reservation> result : results) {
+                try {
+                    result.get(60, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(failures).hasSize(THREADS - 1).allSatisfy(failure -> {
+                assertThat(failure).isInstanceOf(IllegalArgumentException.class).hasNoCause();
+                assertThat(LOCKED_REJECTIONS).contains(failure.getMessage());
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reservations WHERE room_id = ? AND status <> 'CANCELLED'",
+                Integer.class, room.getId())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reservations a JOIN reservations b " +
+                "ON a.room_id = b.room_id AND a.id < b.id AND a.time_range && b.time_range " +
+                "WHERE a.room_id = ? AND a.status <> 'CANCELLED' AND b.status <> 'CANCELLED'",
+                Integer.class, room.getId())).isZero();
+    }
+
+    @Test
+    void bookingsOfDifferentRoomsAndDaysRunInParallel() throws Exception {
+        List<Reservation> reservations = new ArrayList<>();
+        Set<Integer> usedStripes = new HashSet<>();
+        for (int i = 0; i < PARALLEL; i++) {
+            Room room = createRoom();
+            User user = createUser();
+            // En modo local dos claves distintas pueden compartir franja: se elige un día que no comparta
+            LocalDate date = LocalDate.now().plusDays(1);
+            SortedSet<Integer> stripes;
+            while (true) {
+                stripes = bookingLockManager.stripesFor(room.getId(), user.getId(), date, START, END);
+                if (stripes.stream().noneMatch(usedStripes::contains)) {
+                    break;
+                }
+                date = date.plusDays(1);
+            }
+            usedStripes.addAll(stripes);
+            reservations.add(newReservation(room, user, date));
+        }
+
+        // Cada reserva espera dentro de su transacción (con sus bloqueos) a que las demás lleguen
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch booked = new CountDownLatch(PARALLEL);
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Reservation reservation : reservations) {
+                results.add(executor.submit(() -> transaction.execute(status -> {
+                    reservationService.createReservation(reservation);
+                    booked.countDown();
+                    try {
+                        return booked.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                })));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Reservation reservation : reservations) {
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM reservations WHERE room_id = ? AND status <> 'CANCELLED'",
+                    Integer.class, reservation.getRoom().getId())).isEqualTo(1);
+        }
+    }
+
+    private Reservation newReservation(Room room, User user, LocalDate date) {
+        Reservation reservation = new Reservation();
+        reservation.setRoom(roomRepository.findById(room.getId()).orElseThrow());
+        reservation.setUser(user);
+        reservation.setReservationDate(date);
+        reservation.setStartTime(START);
+        reservation.setEndTime(END);
+        reservation.setNumberOfPeople(4);
+        return reservation;
+    }
+
+    private Room createRoom() {
+        Room room = new Room();
+        room.setName("Sala " + UUID.randomUUID());
+        room.setMinCapacity(2);
+        room.setMaxCapacity(10);
+        room.setIsAvailable(true);
+        room.setPricePerHour(100.0);
+        return roomRepository.save(room);
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setFullName("Prueba Concurrencia");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,146 @@
+package io.karaoke.karaoke_reservations.service;
+
+import io.karaoke.karaoke_reservations.PostgresIntegrationTest;
+import io.karaoke.karaoke_reservations.domain.Extra;
+import io.karaoke.karaoke_reservations.domain.Reservation;
+import io.karaoke.karaoke_reservations.domain.Room;
+import io.karaoke.karaoke_reservations.domain.User;
+import io.karaoke.karaoke_reservations.dto.ReservationHistoryPage;
+import io.karaoke.karaoke_reservations.repos.ExtraRepository;
+import io.karaoke.karaoke_reservations.repos.ReservationRepository;
+import io.karaoke.karaoke_reservations.repos.RoomRepository;
+import io.karaoke.karaoke_reservations.repos.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cantidad de sentencias del historial y de los calendarios, medida con las
+ * estadísticas de Hibernate (hibernate.generate_statistics). No debe crecer
+ * con la cantidad de reservas: si vuelve a haber una consulta por fila
+ * (extras, sala o cliente) esta prueba falla.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Sin tareas programadas que ejecuten sentencias durante la medición
+        "karaoke.reservations.auto-complete-cron=-",
+        "karaoke.extras.refresh-ms=3600000" })
+class ReservationQueryCountTest extends PostgresIntegrationTest {
+
+    private static final int RESERVATIONS = 12;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExtraRepository extraRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void createReservations() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Room room = new Room();
+        room.setName("Sala " + UUID.randomUUID());
+        room.setMinCapacity(2);
+        room.setMaxCapacity(10);
+        room.setIsAvailable(true);
+        room.setPricePerHour(100.0);
+        room = roomRepository.save(room);
+
+        user = new User();
+        user.setFullName("Prueba Consultas");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("x");
+        user = userRepository.save(user);
+
+        Extra microphone = extraRepository.save(extra("Micrófono extra", "equipo"));
+        Extra snacks = extraRepository.save(extra("Snacks", "comida"));
+
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 1; i <= RESERVATIONS; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setRoom(room);
+            reservation.setUser(user);
+            reservation.setReservationDate(LocalDate.now().plusDays(i));
+            reservation.setStartTime(LocalTime.of(20, 0));
+            reservation.setEndTime(LocalTime.of(21, 0));
+            reservation.setNumberOfPeople(4);
+            reservation.setExtras(Set.of(microphone, snacks));
+            reservations.add(reservation);
+        }
+        reservationRepository.saveAll(reservations);
+    }
+
+    @Test
+    void historyPageUsesOneQueryForRowsAndOneForExtras() {
+        statistics.clear();
+
+        ReservationHistoryPage page = reservationService.findReservationHistoryPage(
+                user.getId(), "all", "date_desc", null, 20);
+
+        assertThat(page.getReservations()).hasSize(RESERVATIONS)
+                .allSatisfy(r -> assertThat(r.getExtras()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void userCalendarUsesOneQuery() {
+        statistics.clear();
+
+        Map<String, List<Map<String, Object>>> byDate = reservationService.getReservationsGroupedByDateForUser(
+                user.getId(), LocalDate.now(), LocalDate.now().plusDays(30));
+
+        assertThat(byDate.values().stream().mapToInt(List::size).sum()).isEqualTo(RESERVATIONS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adminCalendarUsesOneQuery() {
+        statistics.clear();
+
+        Map<String, List<Map<String, Object>>> byDate = reservationService.getReservationsGroupedByDateForAdmin(
+                LocalDate.now(), LocalDate.now().plusDays(30));
+
+        assertThat(byDate.values().stream().flatMap(List::stream)
+                .filter(item -> item.get("customer") != null)).hasSizeGreaterThanOrEqualTo(RESERVATIONS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static Extra extra(String name, String type) {
+        Extra extra = new Extra();
+        extra.setName(name);
+        extra.setType(type);
+        extra.setPrice(new BigDecimal("25.00"));
+        return extra;
+    }
+}
@@ -0,0 +1,8 @@
+package io.karaoke.karaoke_reservations.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Bloqueos en memoria por franjas (una sola instancia)
+@TestPropertySource(properties = "karaoke.booking.lock-mode=local")
+class StripedLockBookingConcurrencyTest extends BookingConcurrencyTest {
+}